@@ -0,0 +1,61 @@
+package pl.spring.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.mapper.BookMapper;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Mapping of book lists between entities and transfer objects, without
+ * database
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookMapperBenchmark {
+
+	@Param({ "100", "10000" })
+	int listSize;
+
+	private List<BookTo> books;
+	private List<BookEntity> entities;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		books = new Catalog(listSize).books(0, listSize);
+		long id = 1;
+		for (BookTo book : books) {
+			book.setId(id++);
+			book.setVersion(0L);
+		}
+		entities = BookMapper.map2Entity(books);
+	}
+
+	@Benchmark
+	public List<BookTo> map2To() {
+		return BookMapper.map2To(entities);
+	}
+
+	@Benchmark
+	public List<BookEntity> map2Entity() {
+		return BookMapper.map2Entity(books);
+	}
+}
@@ -0,0 +1,56 @@
+package pl.spring.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Book repository finders, below service caches and search index. Second
+ * level cache is configured as in application, so {@link #findOne} is
+ * answered from it.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+public class BookRepositoryBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Benchmark
+	public List<BookTo> findBookTosOfAuthor(CatalogState state, QueryState query) {
+		return state.bookRepository.findBookTosOfAuthor(state.catalog.authorName(query.nextQuery()));
+	}
+
+	@Benchmark
+	public List<BookTo> findBookTosAfter(CatalogState state, QueryState query) {
+		return state.bookRepository.findBookTosAfter(query.nextBookId(state), new PageRequest(0, PAGE_SIZE));
+	}
+
+	@Benchmark
+	public BookEntity findOne(CatalogState state, QueryState query) {
+		return state.bookRepository.findOne(query.nextBookId(state));
+	}
+
+	@Benchmark
+	public List<BookTo> findAllBookTos(CatalogState state) {
+		return state.bookRepository.findAllBookTos();
+	}
+
+	@Benchmark
+	public List<Object[]> countBooksByStatus(CatalogState state) {
+		return state.bookRepository.countBooksByStatus();
+	}
+}
@@ -0,0 +1,121 @@
+package pl.spring.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Book service calls, as made by REST and MVC controllers. Throughput and
+ * sample time modes are measured, the latter reports latency percentiles.
+ * Batch insert is compared with single inserts by {@link #saveBooks} and
+ * {@link #saveBookOneByOne}, both add {@link NewBooksState#BATCH_SIZE}
+ * books.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+public class BookServiceBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Benchmark
+	public List<BookTo> findBooksByAllFieldsWithTitle(CatalogState state, QueryState query) {
+		return state.bookService.findBooksByAllFields(state.catalog.titleFragment(query.nextQuery()), null, null);
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksByAllFieldsWithAuthorAndStatus(CatalogState state, QueryState query) {
+		return state.bookService.findBooksByAllFields(null, state.catalog.authorFragment(query.nextQuery()),
+				BookStatus.FREE);
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksByTitle(CatalogState state, QueryState query) {
+		return state.bookService.findBooksByTitle(state.catalog.titlePrefix(query.nextQuery()));
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksByAuthor(CatalogState state, QueryState query) {
+		return state.bookService.findBooksByAuthor(state.catalog.authorFragment(query.nextQuery()));
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksOfAuthor(CatalogState state, QueryState query) {
+		return state.bookService.findBooksOfAuthor(state.catalog.authorName(query.nextQuery()));
+	}
+
+	@Benchmark
+	public BookTo findBookById(CatalogState state, QueryState query) {
+		return state.bookService.findBookById(query.nextBookId(state));
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksPage(CatalogState state, QueryState query) {
+		return state.bookService.findBooks(query.nextBookId(state), PAGE_SIZE);
+	}
+
+	@Benchmark
+	public List<BookTo> findAllBooks(CatalogState state) {
+		return state.bookService.findAllBooks();
+	}
+
+	@Benchmark
+	public Map<BookStatus, Long> countBooksByStatus(CatalogState state) {
+		return state.bookService.countBooksByStatus();
+	}
+
+	/**
+	 * Edit without version, as sent by MVC controller, content of book stays
+	 * the same
+	 */
+	@Benchmark
+	public BookTo saveBook(CatalogState state, QueryState query) {
+		int number = query.nextBookNumber(state);
+		BookTo book = state.catalog.book(number);
+		book.setId(state.bookIds[number]);
+		return state.bookService.saveBook(book);
+	}
+
+	@Benchmark
+	public List<BookTo> saveBooks(CatalogState state, NewBooksState newBooks) {
+		List<BookTo> savedBooks = state.bookService.saveBooks(newBooks.books);
+		savedBooks.forEach(newBooks::saved);
+		return savedBooks;
+	}
+
+	@Benchmark
+	public List<BookTo> saveBookOneByOne(CatalogState state, NewBooksState newBooks) {
+		List<BookTo> savedBooks = new ArrayList<BookTo>(newBooks.books.size());
+		for (BookTo book : newBooks.books) {
+			savedBooks.add(newBooks.saved(state.bookService.saveBook(book)));
+		}
+		return savedBooks;
+	}
+
+	@Benchmark
+	public int deleteBooks(CatalogState state, SavedBooksState savedBooks) {
+		return state.bookService.deleteBooks(savedBooks.ids);
+	}
+
+	@Benchmark
+	public void loanAndReturn(CatalogState state, QueryState query, Blackhole blackhole) {
+		long id = query.nextBookId(state);
+		blackhole.consume(state.bookService.loan(id));
+		blackhole.consume(state.bookService.returnBook(id));
+	}
+}
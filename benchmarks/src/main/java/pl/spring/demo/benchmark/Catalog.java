@@ -0,0 +1,121 @@
+package pl.spring.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Deterministic catalog of generated books, and search texts matching it.
+ * Titles combine adjective, noun and book number. Authors are drawn from a
+ * pool of one author per {@link #BOOKS_PER_AUTHOR} books, every fifth book
+ * has two authors. Every tenth book is lent, every fiftieth is missing.
+ */
+class Catalog {
+
+	private static final String[] ADJECTIVES = { "Silent", "Hidden", "Last", "Broken", "Golden", "Dark", "Lost",
+			"Distant", "Frozen", "Burning", "Quiet", "Secret", "Empty", "Crimson", "Endless", "Forgotten", "Iron",
+			"Wild", "Pale", "Ancient" };
+	private static final String[] NOUNS = { "River", "Kingdom", "Garden", "Empire", "Shadow", "Winter", "Harbor",
+			"Forest", "Machine", "Letter", "Island", "Mountain", "Station", "Promise", "Tower", "Voyage", "Mirror",
+			"Storm", "Bridge", "Orchard", "Desert", "Signal", "Archive", "Lantern", "Colony" };
+	private static final String[] FIRST_NAMES = { "Anna", "Jan", "Maria", "Piotr", "Katarzyna", "Tomasz", "Ewa",
+			"Marek", "Zofia", "Adam", "Alicja", "Pawel", "Barbara", "Michal", "Joanna", "Krzysztof", "Magdalena",
+			"Andrzej", "Agnieszka", "Jakub" };
+	private static final String[] LAST_NAMES = { "Nowak", "Kowalski", "Wisniewski", "Wojcik", "Kaminski", "Lewandowski",
+			"Zielinski", "Szymanski", "Wozniak", "Dabrowski", "Kozlowski", "Jankowski", "Mazur", "Kwiatkowski",
+			"Krawczyk", "Piotrowski", "Grabowski", "Pawlowski", "Michalski", "Krol", "Wieczorek", "Jablonski",
+			"Wrobel", "Nowicki", "Majewski" };
+	private static final int BOOKS_PER_AUTHOR = 20;
+
+	private final int authorCount;
+
+	/**
+	 * @param size
+	 *            - number of books in catalog
+	 */
+	Catalog(int size) {
+		this.authorCount = Math.max(1, size / BOOKS_PER_AUTHOR);
+	}
+
+	/**
+	 * @param from
+	 *            - number of first book, inclusive
+	 * @param to
+	 *            - number of last book, exclusive
+	 * @return new books, without ids
+	 */
+	List<BookTo> books(int from, int to) {
+		List<BookTo> books = new ArrayList<BookTo>(to - from);
+		for (int book = from; book < to; book++) {
+			books.add(book(book));
+		}
+		return books;
+	}
+
+	/**
+	 * @param book
+	 *            - number of book
+	 * @return new book, without id
+	 */
+	BookTo book(int book) {
+		return new BookTo(title(book), authors(book), status(book));
+	}
+
+	/**
+	 * @return beginning of titles shared by 1 of 500 books
+	 */
+	String titlePrefix(int query) {
+		return ADJECTIVES[query % ADJECTIVES.length] + " " + NOUNS[(query / ADJECTIVES.length) % NOUNS.length];
+	}
+
+	/**
+	 * @return part of titles shared by about 1 of 200 books
+	 */
+	String titleFragment(int query) {
+		return NOUNS[query % NOUNS.length] + " " + (query % 9 + 1);
+	}
+
+	/**
+	 * @return whole name of an author
+	 */
+	String authorName(int query) {
+		return author(query % authorCount);
+	}
+
+	/**
+	 * @return part of author names, shared by 1 of 500 authors
+	 */
+	String authorFragment(int query) {
+		return FIRST_NAMES[query % FIRST_NAMES.length] + " "
+				+ LAST_NAMES[(query / FIRST_NAMES.length) % LAST_NAMES.length];
+	}
+
+	private static String title(int book) {
+		return ADJECTIVES[book % ADJECTIVES.length] + " " + NOUNS[(book / ADJECTIVES.length) % NOUNS.length] + " "
+				+ book;
+	}
+
+	private String authors(int book) {
+		String authors = author(book % authorCount);
+		if (book % 5 == 0 && authorCount > 1) {
+			authors += ", " + author((book / 5 + 1) % authorCount);
+		}
+		return authors;
+	}
+
+	private static String author(int author) {
+		int namesCount = FIRST_NAMES.length * LAST_NAMES.length;
+		String name = FIRST_NAMES[author % FIRST_NAMES.length] + " "
+				+ LAST_NAMES[(author / FIRST_NAMES.length) % LAST_NAMES.length];
+		return author < namesCount ? name : name + " " + author / namesCount;
+	}
+
+	private static BookStatus status(int book) {
+		if (book % 50 == 1) {
+			return BookStatus.MISSING;
+		}
+		return book % 10 == 0 ? BookStatus.LOAN : BookStatus.FREE;
+	}
+}
@@ -0,0 +1,65 @@
+package pl.spring.demo.benchmark;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.GenericXmlApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import pl.spring.demo.repository.BookRepository;
+import pl.spring.demo.service.BookService;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Application context with embedded database seeded with generated
+ * {@link Catalog}. Every benchmark and catalog size runs in its own forked
+ * JVM, so each of them starts with fresh database. Select catalog sizes with
+ * -p catalogSize=1000,1000000, large catalogs need bigger heap, e.g.
+ * -jvmArgsAppend -Xmx8g.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+	private static final int SEED_CHUNK_SIZE = 5000;
+
+	@Param({ "1000", "10000", "100000" })
+	int catalogSize;
+
+	GenericXmlApplicationContext context;
+	BookService bookService;
+	BookRepository bookRepository;
+	EntityManagerFactory entityManagerFactory;
+	PlatformTransactionManager transactionManager;
+	Catalog catalog;
+	long[] bookIds;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new GenericXmlApplicationContext("classpath:spring/benchmark-context.xml");
+		bookService = context.getBean(BookService.class);
+		bookRepository = context.getBean(BookRepository.class);
+		entityManagerFactory = context.getBean(EntityManagerFactory.class);
+		transactionManager = context.getBean(PlatformTransactionManager.class);
+		catalog = new Catalog(catalogSize);
+		bookIds = new long[catalogSize];
+		for (int from = 0; from < catalogSize; from += SEED_CHUNK_SIZE) {
+			int to = Math.min(from + SEED_CHUNK_SIZE, catalogSize);
+			List<BookTo> savedBooks = bookService.saveBooks(catalog.books(from, to));
+			for (int i = 0; i < savedBooks.size(); i++) {
+				bookIds[from + i] = savedBooks.get(i).getId();
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+}
@@ -0,0 +1,118 @@
+package pl.spring.demo.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.spring.demo.to.BookTo;
+
+/**
+ * CPU cost of compressing json listing of books, as sent by /rest/books,
+ * with streams configured as in webstore CompressionFilter. Level 0 stores
+ * content uncompressed and is the baseline. Bytes saved by every encoding
+ * and level are printed once per trial, before measurement.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	@Param({ "100000" })
+	int listingSize;
+
+	@Param({ "gzip", "deflate" })
+	String encoding;
+
+	@Param({ "0", "1", "6", "9" })
+	int level;
+
+	private byte[] listing;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		List<BookTo> books = new Catalog(listingSize).books(0, listingSize);
+		long id = 1;
+		for (BookTo book : books) {
+			book.setId(id++);
+			book.setVersion(0L);
+		}
+		listing = new ObjectMapper().writeValueAsBytes(books);
+		long compressedSize = compress();
+		System.out.printf("%s level %d: %d books, %d bytes compressed to %d, %.1f%% saved%n", encoding, level,
+				listingSize, listing.length, compressedSize, 100.0 * (listing.length - compressedSize) / listing.length);
+	}
+
+	/**
+	 * @return number of compressed bytes
+	 */
+	@Benchmark
+	public long compress() throws IOException {
+		CountingOutputStream target = new CountingOutputStream();
+		try (OutputStream out = compressingStream(target)) {
+			out.write(listing);
+		}
+		return target.count;
+	}
+
+	private OutputStream compressingStream(OutputStream target) throws IOException {
+		if ("gzip".equals(encoding)) {
+			return new GZIPOutputStream(target, BUFFER_SIZE, true) {
+				{
+					def.setLevel(level);
+				}
+			};
+		}
+		return new DeflaterOutputStream(target, new Deflater(level), BUFFER_SIZE, true) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					def.end();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Stands for response stream, only counts written bytes
+	 */
+	private static class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(int b) {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			count += length;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package pl.spring.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Books to add in one benchmark invocation. Books recorded as saved are
+ * deleted after the invocation, outside of measured time, so catalog keeps
+ * its size.
+ */
+@State(Scope.Thread)
+public class NewBooksState {
+
+	static final int BATCH_SIZE = 100;
+
+	List<BookTo> books;
+	private final List<Long> savedIds = new ArrayList<Long>();
+	// JMH cannot pass the same state to both setup and tear down
+	private CatalogState state;
+
+	@Setup(Level.Invocation)
+	public void setUp(CatalogState state) {
+		this.state = state;
+		books = state.catalog.books(0, BATCH_SIZE);
+	}
+
+	/**
+	 * @param book
+	 *            - book saved by benchmark, deleted after invocation
+	 * @return given book
+	 */
+	BookTo saved(BookTo book) {
+		savedIds.add(book.getId());
+		return book;
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() {
+		state.bookService.deleteBooks(savedIds);
+		savedIds.clear();
+	}
+}
@@ -0,0 +1,38 @@
+package pl.spring.demo.benchmark;
+
+import java.util.SplittableRandom;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Chooses queries of one benchmark thread. Sequence is the same in every
+ * run, so runs with the same catalog size execute the same queries.
+ */
+@State(Scope.Thread)
+public class QueryState {
+
+	private final SplittableRandom random = new SplittableRandom(42);
+
+	/**
+	 * @return query number, used to choose search texts of {@link Catalog}
+	 */
+	int nextQuery() {
+		return random.nextInt(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return id of random book of given catalog
+	 */
+	long nextBookId(CatalogState catalog) {
+		return catalog.bookIds[nextBookNumber(catalog)];
+	}
+
+	/**
+	 * @return number of random book of given catalog, its id is at this
+	 *         index of {@link CatalogState#bookIds}
+	 */
+	int nextBookNumber(CatalogState catalog) {
+		return random.nextInt(catalog.bookIds.length);
+	}
+}
@@ -0,0 +1,95 @@
+package pl.spring.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.mapper.BookMapper;
+import pl.spring.demo.repository.BookSpecifications;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Whole catalog read in one transaction, as managed entities mapped to
+ * {@link BookTo} by {@link #findAllEntitiesReadOnly}, and selected straight
+ * into {@link BookTo} by {@link #findAllBookTos}. Read only transactions,
+ * which skip dirty checking snapshots and flush, are compared with plain ones
+ * by {@link #findAllEntitiesReadWrite} and
+ * {@link #findBooksByAllFieldsReadWrite}. Second level and query caches are
+ * bypassed, every invocation reads all matching rows from database. Run with
+ * -prof gc -p catalogSize=10000, gc.alloc.rate.norm is allocation per 10k
+ * rows.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+public class ReadPathBenchmark {
+
+	@Benchmark
+	public List<BookTo> findAllEntitiesReadOnly(CatalogState state) {
+		return inTransaction(state, true, ReadPathBenchmark::findAllEntities);
+	}
+
+	@Benchmark
+	public List<BookTo> findAllEntitiesReadWrite(CatalogState state) {
+		return inTransaction(state, false, ReadPathBenchmark::findAllEntities);
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksByAllFieldsReadOnly(CatalogState state, QueryState query) {
+		return inTransaction(state, true, session -> findBooksByAllFields(state, query));
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksByAllFieldsReadWrite(CatalogState state, QueryState query) {
+		return inTransaction(state, false, session -> findBooksByAllFields(state, query));
+	}
+
+	@Benchmark
+	public List<BookTo> findAllBookTos(CatalogState state) {
+		return inTransaction(state, true, session -> state.bookRepository.findAllBookTos());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<BookTo> findAllEntities(Session session) {
+		return BookMapper.map2To(session.createQuery("select book from BookEntity book order by book.id").list());
+	}
+
+	/**
+	 * Criteria search of free books with title fragment, returns managed
+	 * entities
+	 */
+	private static List<BookTo> findBooksByAllFields(CatalogState state, QueryState query) {
+		return BookMapper.map2To(state.bookRepository.findAll(
+				BookSpecifications.hasAllFields(state.catalog.titleFragment(query.nextQuery()), null, BookStatus.FREE)));
+	}
+
+	/**
+	 * Runs given work in new transaction, with session which neither reads
+	 * from nor writes to second level cache
+	 */
+	private static <T> T inTransaction(CatalogState state, boolean readOnly, Function<Session, T> work) {
+		TransactionTemplate transaction = new TransactionTemplate(state.transactionManager);
+		transaction.setReadOnly(readOnly);
+		return transaction.execute(status -> {
+			Session session = EntityManagerFactoryUtils.getTransactionalEntityManager(state.entityManagerFactory)
+					.unwrap(Session.class);
+			session.setCacheMode(CacheMode.IGNORE);
+			return work.apply(session);
+		});
+	}
+}
@@ -0,0 +1,27 @@
+package pl.spring.demo.benchmark;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Ids of books added before every benchmark invocation, outside of measured
+ * time, for benchmarks which delete them
+ */
+@State(Scope.Thread)
+public class SavedBooksState {
+
+	List<Long> ids;
+
+	@Setup(Level.Invocation)
+	public void setUp(CatalogState state) {
+		ids = state.bookService.saveBooks(state.catalog.books(0, NewBooksState.BATCH_SIZE)).stream()
+				.map(BookTo::getId).collect(Collectors.toList());
+	}
+}
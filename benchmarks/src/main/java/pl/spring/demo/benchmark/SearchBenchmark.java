@@ -0,0 +1,60 @@
+package pl.spring.demo.benchmark;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.mapper.BookMapper;
+import pl.spring.demo.repository.BookSpecifications;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Multi-field search by title and status, as done by findBooksByAllFields:
+ * whole catalog filtered in memory, one criteria query, and search index
+ * used by book service. Compare them with -p
+ * catalogSize=10000,100000,1000000 -jvmArgsAppend -Xmx8g. None of the
+ * queries is cacheable, every invocation reads from database.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+public class SearchBenchmark {
+
+	/**
+	 * Every book is loaded and filtered in memory, as before criteria search
+	 */
+	@Benchmark
+	public List<BookTo> findBooksByAllFieldsInMemory(CatalogState state, QueryState query) {
+		String title = state.catalog.titleFragment(query.nextQuery()).toLowerCase(Locale.ROOT);
+		List<BookEntity> allBooks = state.bookRepository.findAll(BookSpecifications.hasAllFields(null, null, null));
+		return BookMapper.map2To(allBooks.stream()
+				.filter(book -> book.getTitle().toLowerCase(Locale.ROOT).contains(title))
+				.filter(book -> book.getStatus() == BookStatus.FREE)
+				.collect(Collectors.toList()));
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksByAllFieldsByCriteria(CatalogState state, QueryState query) {
+		return BookMapper.map2To(state.bookRepository.findAll(
+				BookSpecifications.hasAllFields(state.catalog.titleFragment(query.nextQuery()), null, BookStatus.FREE)));
+	}
+
+	@Benchmark
+	public List<BookTo> findBooksByAllFieldsByIndex(CatalogState state, QueryState query) {
+		return state.bookService.findBooksByAllFields(state.catalog.titleFragment(query.nextQuery()), null,
+				BookStatus.FREE);
+	}
+}
@@ -0,0 +1,52 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+
+import pl.spring.demo.mapper.AuthorMapper;
+
+/**
+ * Creates authors of all existing books and links them in book_author table.
+ * Written in Java, because authors text is split the same way as for new
+ * books, see {@link AuthorMapper#splitNames(String)}.
+ */
+public class V5__Link_book_authors implements JdbcMigration {
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        Map<String, Long> authorIds = new HashMap<String, Long>();
+        try (Statement books = connection.createStatement();
+                ResultSet book = books.executeQuery("select id, authors from book order by id");
+                PreparedStatement insertAuthor = connection
+                        .prepareStatement("insert into author (id, name, search_name) values (?, ?, ?)");
+                PreparedStatement insertLink = connection
+                        .prepareStatement("insert into book_author (book_id, author_id) values (?, ?)")) {
+            while (book.next()) {
+                for (String name : AuthorMapper.splitNames(book.getString("authors"))) {
+                    String searchName = AuthorMapper.searchName(name);
+                    Long authorId = authorIds.get(searchName);
+                    if (authorId == null) {
+                        authorId = Long.valueOf(authorIds.size() + 1);
+                        authorIds.put(searchName, authorId);
+                        insertAuthor.setLong(1, authorId);
+                        insertAuthor.setString(2, name);
+                        insertAuthor.setString(3, searchName);
+                        insertAuthor.executeUpdate();
+                    }
+                    insertLink.setLong(1, book.getLong("id"));
+                    insertLink.setLong(2, authorId);
+                    insertLink.executeUpdate();
+                }
+            }
+        }
+        try (Statement sequence = connection.createStatement()) {
+            sequence.execute("alter sequence AUTHOR_ID_SEQ restart with " + (authorIds.size() + 1));
+        }
+    }
+}
@@ -12,7 +12,7 @@ public class BookDaoImpl extends AbstractDao<BookEntity, Long> implements BookDa
     @Override
     public List<BookEntity> findBookByTitle(String title) {
         TypedQuery<BookEntity> query = entityManager.createQuery(
-                "select book from BookEntity book where upper(book.title) like concat(upper(:title), '%')", BookEntity.class);
+                "select book from BookEntity book where book.searchTitle like concat(upper(:title), '%')", BookEntity.class);
         query.setParameter("title", title);
         return query.getResultList();
     }
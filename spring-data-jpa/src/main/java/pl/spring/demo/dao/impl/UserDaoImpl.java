@@ -12,7 +12,7 @@ public class UserDaoImpl extends AbstractDao<UserEntity, Long> implements UserDa
 	@Override
 	public List<UserEntity> findUserByName(String name) {
 		TypedQuery<UserEntity> query = entityManager.createQuery(
-				"select user from UserEntity user where upper(user.userName) like concat(upper(:name), '%')",
+				"select user from UserEntity user where user.searchUserName like concat(upper(:name), '%')",
 				UserEntity.class);
 		query.setParameter("name", name);
 		return query.getResultList();
@@ -0,0 +1,95 @@
+package pl.spring.demo.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Connection pool which measures how long callers wait for connections.
+ * Pool usage and wait times are exported over JMX.
+ */
+@ManagedResource(objectName = "pl.spring.demo:type=DataSource,name=connectionPool", description = "Database connection pool")
+public class MonitoredDataSource extends DelegatingDataSource {
+
+	private final BasicDataSource pool;
+	private final LongAdder connectionRequests = new LongAdder();
+	private final LongAdder totalWaitNanos = new LongAdder();
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+
+	public MonitoredDataSource(BasicDataSource pool) {
+		super(pool);
+		this.pool = pool;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return super.getConnection();
+		} finally {
+			recordWait(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		long start = System.nanoTime();
+		try {
+			return super.getConnection(username, password);
+		} finally {
+			recordWait(System.nanoTime() - start);
+		}
+	}
+
+	private void recordWait(long waitNanos) {
+		connectionRequests.increment();
+		totalWaitNanos.add(waitNanos);
+		maxWaitNanos.accumulate(waitNanos);
+	}
+
+	@ManagedAttribute(description = "Number of connections currently borrowed from pool")
+	public int getActiveConnections() {
+		return pool.getNumActive();
+	}
+
+	@ManagedAttribute(description = "Number of open connections waiting in pool")
+	public int getIdleConnections() {
+		return pool.getNumIdle();
+	}
+
+	@ManagedAttribute(description = "Maximal number of connections")
+	public int getMaxConnections() {
+		return pool.getMaxTotal();
+	}
+
+	@ManagedAttribute(description = "Number of connection requests")
+	public long getConnectionRequests() {
+		return connectionRequests.sum();
+	}
+
+	@ManagedAttribute(description = "Mean time of waiting for connection, in milliseconds")
+	public double getMeanWaitMillis() {
+		long requests = connectionRequests.sum();
+		return requests == 0 ? 0 : (double) totalWaitNanos.sum() / requests / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@ManagedAttribute(description = "Longest time of waiting for connection, in milliseconds")
+	public double getMaxWaitMillis() {
+		return (double) maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@ManagedOperation(description = "Resets wait time statistics")
+	public void resetStatistics() {
+		connectionRequests.reset();
+		totalWaitNanos.reset();
+		maxWaitNanos.reset();
+	}
+}
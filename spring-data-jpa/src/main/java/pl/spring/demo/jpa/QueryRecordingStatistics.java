@@ -0,0 +1,243 @@
+package pl.spring.demo.jpa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.ConcurrentStatisticsImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.spring.demo.to.QueryStatisticsTo;
+import pl.spring.demo.to.RequestQueryStatisticsTo;
+
+/**
+ * Hibernate statistics which additionally keep execution count, time and
+ * returned rows of every query string, log queries slower than threshold
+ * and count statements prepared in every {@link QueryScope}. Scopes which
+ * prepared more statements than limit are logged as possible N+1 selects.
+ *
+ * Hibernate passes query time rounded down to whole milliseconds, so
+ * sub-millisecond queries would add nothing to totals. Execution time is
+ * measured with {@link System#nanoTime()} from the last statement prepared
+ * by the executing thread and kept within the millisecond reported by
+ * Hibernate. Queries answered from query cache, loads by id and lazy
+ * fetches are not queries for Hibernate, they are seen only in statement
+ * counts of scopes.
+ */
+public class QueryRecordingStatistics extends ConcurrentStatisticsImpl {
+
+	private static final Logger LOG = LoggerFactory.getLogger(QueryRecordingStatistics.class);
+
+	/** queries with literals may produce endless distinct strings */
+	private static final int MAX_QUERIES = 1000;
+	private static final String OTHER_QUERIES = "(other queries)";
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final long slowThresholdMillis;
+	private final int statementsPerRequestLimit;
+	private final ConcurrentMap<String, QueryMetrics> queries = new ConcurrentHashMap<String, QueryMetrics>();
+	private final ConcurrentMap<String, RequestMetrics> requests = new ConcurrentHashMap<String, RequestMetrics>();
+	private final ThreadLocal<Long> statementStart = new ThreadLocal<Long>();
+
+	/**
+	 * @param sessionFactory
+	 *            - session factory which statistics are collected
+	 * @param slowThresholdMillis
+	 *            - queries taking at least this long are logged, 0 turns
+	 *            the log off
+	 * @param statementsPerRequestLimit
+	 *            - scopes preparing more statements are flagged
+	 */
+	public QueryRecordingStatistics(SessionFactoryImplementor sessionFactory, long slowThresholdMillis,
+			int statementsPerRequestLimit) {
+		super(sessionFactory);
+		this.slowThresholdMillis = slowThresholdMillis;
+		this.statementsPerRequestLimit = statementsPerRequestLimit;
+	}
+
+	@Override
+	public void queryExecuted(String query, int rows, long time) {
+		super.queryExecuted(query, rows, time);
+		long nanos = elapsedNanos(time);
+		boolean slow = slowThresholdMillis > 0 && nanos >= slowThresholdMillis * NANOS_PER_MILLI;
+		queryMetrics(query).record(rows, nanos, slow);
+		if (slow) {
+			LOG.warn("Slow query, {} ms, {} rows: {}", time, rows, query);
+		}
+	}
+
+	@Override
+	public void prepareStatement() {
+		super.prepareStatement();
+		statementStart.set(System.nanoTime());
+		QueryScope scope = QueryScope.current();
+		if (scope != null) {
+			scope.statementPrepared();
+		}
+	}
+
+	/**
+	 * Records statements of finished scope
+	 *
+	 * @param scope
+	 *            - scope which work is done, it should be detached from all
+	 *            threads
+	 */
+	public void scopeFinished(QueryScope scope) {
+		int statements = scope.getStatements();
+		boolean flagged = statements > statementsPerRequestLimit;
+		RequestMetrics metrics = requests.get(scope.getName());
+		if (metrics == null) {
+			metrics = requests.computeIfAbsent(scope.getName(), RequestMetrics::new);
+		}
+		metrics.record(statements, flagged);
+		if (flagged) {
+			LOG.warn("{} prepared {} statements, limit is {}, possible N+1 select", scope.getName(), statements,
+					statementsPerRequestLimit);
+		}
+	}
+
+	/**
+	 * @return statistics of executed queries, longest total time first
+	 */
+	public List<QueryStatisticsTo> getQueryStatistics() {
+		List<QueryStatisticsTo> snapshots = new ArrayList<QueryStatisticsTo>(queries.size());
+		queries.values().forEach(metrics -> snapshots.add(metrics.snapshot()));
+		snapshots.sort(Comparator.comparingDouble(QueryStatisticsTo::getTotalMillis).reversed());
+		return snapshots;
+	}
+
+	/**
+	 * @return statement counts of finished scopes, ordered by scope name
+	 */
+	public List<RequestQueryStatisticsTo> getRequestStatistics() {
+		List<RequestQueryStatisticsTo> snapshots = new ArrayList<RequestQueryStatisticsTo>(requests.size());
+		requests.values().forEach(metrics -> snapshots.add(metrics.snapshot()));
+		snapshots.sort(Comparator.comparing(RequestQueryStatisticsTo::getRequest));
+		return snapshots;
+	}
+
+	public long getSlowThresholdMillis() {
+		return slowThresholdMillis;
+	}
+
+	public int getStatementsPerRequestLimit() {
+		return statementsPerRequestLimit;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		if (queries == null) {
+			// called by super constructor, before fields are initialized
+			return;
+		}
+		queries.clear();
+		requests.clear();
+	}
+
+	/**
+	 * @param millis
+	 *            - query time measured by Hibernate, rounded down
+	 * @return time since current thread prepared its last statement, within
+	 *         the millisecond measured by Hibernate
+	 */
+	private long elapsedNanos(long millis) {
+		Long start = statementStart.get();
+		long lowerBound = millis * NANOS_PER_MILLI;
+		if (start == null) {
+			return lowerBound;
+		}
+		statementStart.remove();
+		long elapsed = System.nanoTime() - start;
+		return Math.min(Math.max(elapsed, lowerBound), lowerBound + NANOS_PER_MILLI - 1);
+	}
+
+	private QueryMetrics queryMetrics(String query) {
+		// plain lookup first, computeIfAbsent locks even when metrics exist
+		QueryMetrics metrics = queries.get(query);
+		if (metrics == null) {
+			String key = queries.size() < MAX_QUERIES ? query : OTHER_QUERIES;
+			metrics = queries.computeIfAbsent(key, QueryMetrics::new);
+		}
+		return metrics;
+	}
+
+	private static class QueryMetrics {
+
+		private final String query;
+		private final LongAdder executions = new LongAdder();
+		private final LongAdder rows = new LongAdder();
+		private final LongAdder slowExecutions = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+		QueryMetrics(String query) {
+			this.query = query;
+		}
+
+		void record(int rowCount, long nanos, boolean slow) {
+			executions.increment();
+			rows.add(rowCount);
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+			if (slow) {
+				slowExecutions.increment();
+			}
+		}
+
+		QueryStatisticsTo snapshot() {
+			QueryStatisticsTo snapshot = new QueryStatisticsTo();
+			long count = executions.sum();
+			double totalMillis = (double) totalNanos.sum() / NANOS_PER_MILLI;
+			snapshot.setQuery(query);
+			snapshot.setExecutions(count);
+			snapshot.setRows(rows.sum());
+			snapshot.setSlowExecutions(slowExecutions.sum());
+			snapshot.setTotalMillis(totalMillis);
+			snapshot.setMeanMillis(count == 0 ? 0 : totalMillis / count);
+			snapshot.setMaxMillis((double) maxNanos.get() / NANOS_PER_MILLI);
+			return snapshot;
+		}
+	}
+
+	private static class RequestMetrics {
+
+		private final String request;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder flagged = new LongAdder();
+		private final LongAdder statements = new LongAdder();
+		private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0L);
+
+		RequestMetrics(String request) {
+			this.request = request;
+		}
+
+		void record(int statementCount, boolean overLimit) {
+			count.increment();
+			statements.add(statementCount);
+			maxStatements.accumulate(statementCount);
+			if (overLimit) {
+				flagged.increment();
+			}
+		}
+
+		RequestQueryStatisticsTo snapshot() {
+			RequestQueryStatisticsTo snapshot = new RequestQueryStatisticsTo();
+			long requests = count.sum();
+			snapshot.setRequest(request);
+			snapshot.setCount(requests);
+			snapshot.setFlagged(flagged.sum());
+			snapshot.setMeanStatements(requests == 0 ? 0 : (double) statements.sum() / requests);
+			snapshot.setMaxStatements(maxStatements.get());
+			return snapshot;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package pl.spring.demo.jpa;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit of work, usually one http request, which counts statements prepared
+ * by Hibernate while it is attached to current thread. Work handed over to
+ * other threads is counted only when the scope is attached there too.
+ */
+public final class QueryScope {
+
+	private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<QueryScope>();
+
+	private final String name;
+	private final AtomicInteger statements = new AtomicInteger();
+
+	/**
+	 * @param name
+	 *            - name under which statements of the scope are reported
+	 */
+	public QueryScope(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return scope attached to current thread, null when there is none
+	 */
+	public static QueryScope current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Counts statements prepared by current thread in this scope, until
+	 * {@link #detach()} is called
+	 */
+	public void attach() {
+		CURRENT.set(this);
+	}
+
+	/**
+	 * Stops counting statements of current thread
+	 */
+	public static void detach() {
+		CURRENT.remove();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return number of statements prepared so far
+	 */
+	public int getStatements() {
+		return statements.get();
+	}
+
+	void statementPrepared() {
+		statements.incrementAndGet();
+	}
+}
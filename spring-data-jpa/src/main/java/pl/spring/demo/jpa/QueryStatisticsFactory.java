@@ -0,0 +1,33 @@
+package pl.spring.demo.jpa;
+
+import java.util.Map;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Creates {@link QueryRecordingStatistics}, registered with
+ * hibernate.stats.factory property. Thresholds are read from the same
+ * properties:
+ * <ul>
+ * <li>query.slowThresholdMillis - queries taking at least this long are
+ * logged, 0 turns the log off, default is 100</li>
+ * <li>query.statementsPerRequestLimit - requests preparing more statements
+ * are flagged as possible N+1 selects, default is 20</li>
+ * </ul>
+ */
+public class QueryStatisticsFactory implements StatisticsFactory {
+
+	public static final String SLOW_THRESHOLD_MILLIS = "query.slowThresholdMillis";
+	public static final String STATEMENTS_PER_REQUEST_LIMIT = "query.statementsPerRequestLimit";
+
+	@Override
+	public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+		Map<?, ?> properties = sessionFactory.getProperties();
+		return new QueryRecordingStatistics(sessionFactory,
+				ConfigurationHelper.getLong(SLOW_THRESHOLD_MILLIS, properties, 100),
+				ConfigurationHelper.getInt(STATEMENTS_PER_REQUEST_LIMIT, properties, 20));
+	}
+}
@@ -0,0 +1,84 @@
+package pl.spring.demo.jpa;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Hibernate dialect which runs read only transactions in real read only
+ * mode. Besides manual flush mode, already set by {@link HibernateJpaDialect},
+ * entities are loaded read only, so Hibernate keeps no dirty checking
+ * snapshots, and JDBC connection is marked read only before transaction
+ * begins.
+ */
+public class ReadOnlyHibernateJpaDialect extends HibernateJpaDialect {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        if (!definition.isReadOnly()) {
+            return super.beginTransaction(entityManager, definition);
+        }
+        Session session = getSession(entityManager);
+        Connection connection = ((SessionImplementor) session).connection();
+        connection.setReadOnly(true);
+        Object transactionData;
+        try {
+            transactionData = super.beginTransaction(entityManager, definition);
+        } catch (RuntimeException | SQLException e) {
+            connection.setReadOnly(false);
+            throw e;
+        }
+        session.setDefaultReadOnly(true);
+        return new ReadOnlyTransactionData(transactionData, session, connection);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransactionData) {
+            ReadOnlyTransactionData readOnlyData = (ReadOnlyTransactionData) transactionData;
+            readOnlyData.reset();
+            super.cleanupTransaction(readOnlyData.transactionData);
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    private static class ReadOnlyTransactionData {
+
+        private final Object transactionData;
+        private final Session session;
+        private final Connection connection;
+
+        ReadOnlyTransactionData(Object transactionData, Session session, Connection connection) {
+            this.transactionData = transactionData;
+            this.session = session;
+            this.connection = connection;
+        }
+
+        void reset() {
+            if (session.isOpen()) {
+                session.setDefaultReadOnly(false);
+            }
+            try {
+                // connection is usually released after commit already, pooled
+                // connections are reset by the pool then
+                if (!connection.isClosed()) {
+                    connection.setReadOnly(false);
+                }
+            } catch (SQLException e) {
+                throw new PersistenceException("Could not reset read only connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.spring.demo.jpa;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Checks at startup that every id sequence is incremented by allocation size
+ * of its generator. Pooled-lo optimizer assigns allocation size ids after
+ * every sequence value, so with smaller increment two session factories, or
+ * one after restart, hand out the same ids. Allocation size is configured in
+ * config/orm.xml and increment in migrations, application does not start
+ * until both are equal.
+ */
+public class SequenceAllocationCheck implements InitializingBean {
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final DataSource dataSource;
+
+	public SequenceAllocationCheck(EntityManagerFactory entityManagerFactory, DataSource dataSource) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.dataSource = dataSource;
+	}
+
+	/**
+	 * @throws IllegalStateException
+	 *             when increment of a sequence differs from allocation size
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		for (String entityName : sessionFactory.getAllClassMetadata().keySet()) {
+			IdentifierGenerator generator = sessionFactory.getIdentifierGenerator(entityName);
+			if (generator instanceof SequenceStyleGenerator) {
+				SequenceStyleGenerator sequenceGenerator = (SequenceStyleGenerator) generator;
+				String sequenceName = sequenceGenerator.getDatabaseStructure().getName();
+				List<Long> increments = jdbcTemplate.queryForList(
+						"select increment from information_schema.sequences where upper(sequence_name) = upper(?)",
+						Long.class, sequenceName);
+				int allocationSize = sequenceGenerator.getOptimizer().getIncrementSize();
+				if (increments.size() != 1 || increments.get(0) != allocationSize) {
+					throw new IllegalStateException("Sequence " + sequenceName + " of " + entityName
+							+ " has to be incremented by allocation size " + allocationSize + ", found increments "
+							+ increments);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package pl.spring.demo.mapper;
+
+import pl.spring.demo.entity.AuthorEntity;
+import pl.spring.demo.to.AuthorTo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class AuthorMapper {
+
+	private static final String NAME_SEPARATOR = ",";
+
+	public static AuthorTo map(AuthorEntity authorEntity) {
+		if (authorEntity != null) {
+			return new AuthorTo(authorEntity.getId(), authorEntity.getName());
+		}
+		return null;
+	}
+
+	public static List<AuthorTo> map2To(List<AuthorEntity> authorEntities) {
+		return authorEntities.stream().map(AuthorMapper::map).collect(Collectors.toList());
+	}
+
+	/**
+	 * Splits book authors text into separate author names
+	 *
+	 * @param authors
+	 *            - comma separated author names, as stored in book
+	 * @return trimmed, non empty names, without case insensitive duplicates
+	 */
+	public static List<String> splitNames(String authors) {
+		Map<String, String> names = new LinkedHashMap<String, String>();
+		if (authors != null) {
+			for (String name : authors.split(NAME_SEPARATOR)) {
+				String trimmed = name.trim();
+				if (!trimmed.isEmpty()) {
+					names.putIfAbsent(searchName(trimmed), trimmed);
+				}
+			}
+		}
+		return new ArrayList<String>(names.values());
+	}
+
+	/**
+	 * @param name
+	 *            - author name
+	 * @return normalized name, same as {@link AuthorEntity#getSearchName()}
+	 */
+	public static String searchName(String name) {
+		return name.toUpperCase(Locale.ROOT);
+	}
+}
@@ -11,18 +11,38 @@ public class BookMapper {
 	public static BookTo map(BookEntity bookEntity) {
 		if (bookEntity != null) {
 			return new BookTo(bookEntity.getId(), bookEntity.getTitle(), bookEntity.getAuthors(),
-					bookEntity.getStatus());
+					bookEntity.getStatus(), bookEntity.getVersion());
 		}
 		return null;
 	}
 
 	public static BookEntity map(BookTo bookTo) {
 		if (bookTo != null) {
-			return new BookEntity(bookTo.getId(), bookTo.getTitle(), bookTo.getAuthors(), bookTo.getStatus());
+			BookEntity bookEntity = new BookEntity(bookTo.getId(), bookTo.getTitle(), bookTo.getAuthors(),
+					bookTo.getStatus());
+			bookEntity.setVersion(bookTo.getVersion());
+			return bookEntity;
 		}
 		return null;
 	}
 
+	public static BookTo copy(BookTo bookTo) {
+		if (bookTo != null) {
+			return new BookTo(bookTo.getId(), bookTo.getTitle(), bookTo.getAuthors(), bookTo.getStatus(),
+					bookTo.getVersion());
+		}
+		return null;
+	}
+
+	/**
+	 * @return true when both books carry versions and the first one is older,
+	 *         i.e. it was read or saved before the second one
+	 */
+	public static boolean isOlder(BookTo book, BookTo otherBook) {
+		return book.getVersion() != null && otherBook.getVersion() != null
+				&& book.getVersion() < otherBook.getVersion();
+	}
+
 	public static List<BookTo> map2To(List<BookEntity> bookEntities) {
 		return bookEntities.stream().map(BookMapper::map).collect(Collectors.toList());
 	}
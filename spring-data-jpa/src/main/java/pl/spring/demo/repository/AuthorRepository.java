@@ -0,0 +1,26 @@
+package pl.spring.demo.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import pl.spring.demo.entity.AuthorEntity;
+
+public interface AuthorRepository extends JpaRepository<AuthorEntity, Long>, AuthorRepositoryCustom {
+
+	@Query("select author from AuthorEntity author where author.searchName like concat(upper(:name), '%') order by author.searchName")
+	public List<AuthorEntity> findAuthorsByName(@Param("name") String name);
+
+	@Query("select author from AuthorEntity author where author.searchName in :searchNames")
+	public List<AuthorEntity> findAuthorsBySearchNames(@Param("searchNames") Collection<String> searchNames);
+
+	@Modifying
+	@Query("delete from AuthorEntity author where author.id not in "
+			+ "(select bookAuthor.id from BookEntity book join book.authorEntities bookAuthor)")
+	public int deleteAuthorsWithoutBooks();
+
+}
@@ -0,0 +1,21 @@
+package pl.spring.demo.repository;
+
+import java.util.Map;
+
+/**
+ * Author repository operations which are not covered by Spring Data queries
+ */
+public interface AuthorRepositoryCustom {
+
+    /**
+     * Creates authors missing in database with one merge statement per
+     * author, sent in one JDBC batch. Author added meanwhile by concurrent
+     * transaction is found by the merge instead of breaking unique search
+     * name. Existing authors are updated in place, so they stay locked and
+     * cannot be removed as unused until end of transaction. Has to be called
+     * in transaction.
+     *
+     * @param namesBySearchName author names keyed by their search names
+     */
+    void mergeAuthors(Map<String, String> namesBySearchName);
+}
@@ -1,20 +1,60 @@
 package pl.spring.demo.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.BookTo;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface BookRepository extends JpaRepository<BookEntity, Long> {
+/**
+ * Book repository. Read only listings select straight into {@link BookTo},
+ * without creating managed entities. Queries are not cacheable, searches
+ * are answered by search index and lookups by id come from second level
+ * cache.
+ */
+public interface BookRepository
+        extends JpaRepository<BookEntity, Long>, JpaSpecificationExecutor<BookEntity>, BookRepositoryCustom {
 
-    @Query("select book from BookEntity book where upper(book.title) like concat(upper(:title), '%')")
-    public List<BookEntity> findBookByTitle(@Param("title") String title);
+    @Query("select new pl.spring.demo.to.BookTo(book.id, book.title, book.authors, book.status, book.version) "
+            + "from BookEntity book order by book.id")
+    public List<BookTo> findAllBookTos();
 
-    @Query("select book from BookEntity book where upper(book.authors) like concat('%', upper(:author), '%')")
-    public List<BookEntity> findBookByAuthor(@Param("author") String author);
-    
-    @Query("select book from BookEntity book where book.id like :id")
-    public BookEntity findBookById(@Param("id") Long id);
+    @Query("select new pl.spring.demo.to.BookTo(book.id, book.title, book.authors, book.status, book.version) "
+            + "from BookEntity book where book.id > :afterId order by book.id")
+    public List<BookTo> findBookTosAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new pl.spring.demo.to.BookTo(book.id, book.title, book.authors, book.status, book.version) "
+            + "from BookEntity book join book.authorEntities author where author.searchName = upper(:name) "
+            + "order by book.id")
+    public List<BookTo> findBookTosOfAuthor(@Param("name") String name);
+
+    @Query("select book.id, book.version from BookEntity book where book.id in :ids")
+    public List<Object[]> findVersionsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select book.status, count(book) from BookEntity book group by book.status")
+    public List<Object[]> countBooksByStatus();
+
+    /**
+     * Changes book status in one conditional update, so concurrent changes
+     * can not both succeed. Version is incremented like on any other update.
+     *
+     * @return 1 when book was changed, 0 when there is no such book in
+     *         expected status
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update BookEntity book set book.status = :newStatus, book.version = book.version + 1 "
+            + "where book.id = :id and book.status in :expectedStatuses")
+    public int changeStatus(@Param("id") Long id, @Param("expectedStatuses") Collection<BookStatus> expectedStatuses,
+            @Param("newStatus") BookStatus newStatus);
+
+    @Modifying
+    @Query("delete from BookEntity book where book.id in :ids")
+    public int deleteBooksByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,38 @@
+package pl.spring.demo.repository;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Book repository operations which are not covered by Spring Data queries
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Scrolls over all books ordered by id, fetching them from database in
+     * chunks of given size. Rows are selected straight into transfer objects,
+     * nothing is added to persistence context. Has to be called in
+     * transaction.
+     *
+     * @param chunkSize number of rows fetched from database at once
+     * @param action action called for every book
+     */
+    void forEachBook(int chunkSize, Consumer<BookTo> action);
+
+    /**
+     * Saves given books, new ones are persisted and existing ones merged.
+     * Persistence context is flushed and cleared after every chunk, so
+     * statements go to database in JDBC batches and persistence context holds
+     * at most one chunk. Saved books are detached, but all of them are
+     * returned, so callers have to bound number of books. Has to be called in
+     * transaction.
+     *
+     * @param books books to save
+     * @param chunkSize number of books flushed at once
+     * @return saved detached books, with ids set
+     */
+    List<BookEntity> saveInChunks(List<BookEntity> books, int chunkSize);
+}
@@ -0,0 +1,57 @@
+package pl.spring.demo.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.Predicate;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.enumerations.BookStatus;
+
+/**
+ * Criteria specifications for {@link BookEntity} searches
+ */
+public final class BookSpecifications {
+
+	private BookSpecifications() {
+	}
+
+	/**
+	 * Builds one where clause from all search attributes that are set. Title
+	 * and authors are matched as case insensitive substrings, status has to
+	 * be equal. Null or empty attribute is not taken into account.
+	 *
+	 * @param title
+	 *            - part of book title
+	 * @param authors
+	 *            - part of book authors
+	 * @param status
+	 *            - book status
+	 * @return specification matching books with all given attributes
+	 */
+	public static Specification<BookEntity> hasAllFields(String title, String authors, BookStatus status) {
+		return (root, query, builder) -> {
+			List<Predicate> predicates = new ArrayList<Predicate>();
+			if (isSet(title)) {
+				predicates.add(builder.like(builder.upper(root.<String> get("title")), containsPattern(title)));
+			}
+			if (isSet(authors)) {
+				predicates.add(builder.like(builder.upper(root.<String> get("authors")), containsPattern(authors)));
+			}
+			if (status != null) {
+				predicates.add(builder.equal(root.get("status"), status));
+			}
+			return builder.and(predicates.toArray(new Predicate[predicates.size()]));
+		};
+	}
+
+	private static boolean isSet(String value) {
+		return value != null && !value.isEmpty();
+	}
+
+	private static String containsPattern(String value) {
+		return "%" + value.toUpperCase() + "%";
+	}
+}
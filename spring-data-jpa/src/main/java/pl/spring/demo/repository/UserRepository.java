@@ -2,15 +2,19 @@ package pl.spring.demo.repository;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import pl.spring.demo.entity.UserEntity;
 
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
-	@Query("select user from UserEntity user where upper(user.userName) like concat(upper(:name), '%')")
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+	@Query("select user from UserEntity user where user.searchUserName like concat(upper(:name), '%')")
 	public List<UserEntity> findUsersByName(@Param("name") String name);
 
 }
@@ -0,0 +1,51 @@
+package pl.spring.demo.repository.impl;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+
+import pl.spring.demo.repository.AuthorRepositoryCustom;
+
+public class AuthorRepositoryImpl implements AuthorRepositoryCustom {
+
+    private static final String MERGE_AUTHOR = "merge into author "
+            + "using (values (cast(? as varchar(200)), cast(? as varchar(200)))) as new_author (name, search_name) "
+            + "on author.search_name = new_author.search_name "
+            + "when matched then update set author.search_name = new_author.search_name "
+            + "when not matched then insert (id, name, search_name) "
+            + "values (next value for author_id_seq, new_author.name, new_author.search_name)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void mergeAuthors(Map<String, String> namesBySearchName) {
+        if (namesBySearchName.isEmpty()) {
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(MERGE_AUTHOR)) {
+                for (Map.Entry<String, String> author : namesBySearchName.entrySet()) {
+                    statement.setString(1, author.getValue());
+                    statement.setString(2, author.getKey());
+                    statement.addBatch();
+                }
+                try {
+                    statement.executeBatch();
+                } catch (BatchUpdateException e) {
+                    // insert raced with concurrent transaction, its author is committed now and merge finds it
+                    for (Map.Entry<String, String> author : namesBySearchName.entrySet()) {
+                        statement.setString(1, author.getValue());
+                        statement.setString(2, author.getKey());
+                        statement.executeUpdate();
+                    }
+                }
+            }
+        });
+    }
+}
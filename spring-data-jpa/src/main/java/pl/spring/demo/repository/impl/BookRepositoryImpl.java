@@ -0,0 +1,61 @@
+package pl.spring.demo.repository.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.repository.BookRepositoryCustom;
+import pl.spring.demo.to.BookTo;
+
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void forEachBook(int chunkSize, Consumer<BookTo> action) {
+        ScrollableResults results = entityManager.unwrap(Session.class)
+                .createQuery("select new pl.spring.demo.to.BookTo(book.id, book.title, book.authors, book.status, "
+                        + "book.version) "
+                        + "from BookEntity book order by book.id")
+                .setFetchSize(chunkSize)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (results.next()) {
+                action.accept((BookTo) results.get(0));
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    @Override
+    public List<BookEntity> saveInChunks(List<BookEntity> books, int chunkSize) {
+        List<BookEntity> savedBooks = new ArrayList<BookEntity>(books.size());
+        for (BookEntity book : books) {
+            if (book.getId() == null) {
+                entityManager.persist(book);
+                savedBooks.add(book);
+            } else {
+                savedBooks.add(entityManager.merge(book));
+            }
+            if (savedBooks.size() % chunkSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return savedBooks;
+    }
+}
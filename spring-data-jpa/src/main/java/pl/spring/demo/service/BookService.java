@@ -1,22 +1,134 @@
 package pl.spring.demo.service;
 
 import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.AuthorTo;
 import pl.spring.demo.to.BookTo;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BookService {
 
+    int MAX_PAGE_SIZE = 500;
+    int MAX_DELETE_BATCH_SIZE = 1000;
+
     List<BookTo> findAllBooks();
+	/**
+	 * Keyset pagination over all books, ordered by id
+	 *
+	 * @param afterId id of last book from previous page, null for first page
+	 * @param limit maximal number of books on page, capped at {@link #MAX_PAGE_SIZE}
+	 * @return books with ids greater than afterId
+	 */
+	List<BookTo> findBooks(Long afterId, int limit);
+	/**
+	 * Passes all books, ordered by id, to given consumer one by one. Books
+	 * are read from database in fixed size chunks and never collected, so
+	 * memory use does not depend on catalog size.
+	 *
+	 * @param consumer action called for every book
+	 */
+	void streamAllBooks(Consumer<BookTo> consumer);
     List<BookTo> findBooksByTitle(String title);
     List<BookTo> findBooksByAuthor(String author);
+	/**
+	 * @param name beginning of author name, case insensitive
+	 * @return authors with matching names, ordered by name
+	 */
+	List<AuthorTo> findAuthorsByName(String name);
+	/**
+	 * Finds books of one author. Unlike {@link #findBooksByAuthor(String)}
+	 * whole author name has to match, case insensitive, so it is answered
+	 * with index lookups.
+	 *
+	 * @param name author name
+	 * @return books of given author, ordered by id
+	 */
+	List<BookTo> findBooksOfAuthor(String name);
+	/**
+	 * Deletes authors which are not linked with any book. Authors are kept
+	 * when their last book is deleted or edited, so book added again links
+	 * the same author, call it to clean them up. Authors linked by saves
+	 * running concurrently are kept.
+	 *
+	 * @return number of deleted authors
+	 */
+	int deleteUnusedAuthors();
 
     BookTo saveBook(BookTo book);
+	/**
+	 * Saves all given books in one transaction. Books are written in JDBC
+	 * batches, use it instead of {@link #saveBook(BookTo)} for bulk imports.
+	 * All saved books are returned, large imports should be split into
+	 * several calls.
+	 *
+	 * @param books books to add or update
+	 * @return saved books, in the same order, with ids set
+	 */
+	List<BookTo> saveBooks(List<BookTo> books);
     void deleteBook(Long id);
+	/**
+	 * Lends free book. Status is checked and changed in one conditional
+	 * update, so book is never lent twice.
+	 *
+	 * @param id of book to lend
+	 * @return lent book, or null when there is no free book with given id
+	 */
+	BookTo loan(Long id);
+	/**
+	 * Returns lent or missing book, it becomes free
+	 *
+	 * @param id of book to return
+	 * @return returned book, or null when there is no lent nor missing book
+	 *         with given id
+	 */
+	BookTo returnBook(Long id);
+	/**
+	 * Marks free or lent book as missing
+	 *
+	 * @param id of missing book
+	 * @return missing book, or null when there is no free nor lent book with
+	 *         given id
+	 */
+	BookTo markMissing(Long id);
+	/**
+	 * Deletes given books with one id lookup and one bulk delete statement
+	 * per {@link #MAX_DELETE_BATCH_SIZE} ids, books are not loaded before
+	 *
+	 * @param ids ids of books to delete, unknown ids are skipped
+	 * @return number of deleted books
+	 */
+	int deleteBooks(Collection<Long> ids);
+	/**
+	 * Deletes all books with one bulk delete statement
+	 */
+	void deleteAllBooks();
 	/**
 	 * @param id of book to find
 	 * @return book with given id
 	 */
 	BookTo findBookById(Long id);
+	/**
+	 * @param title part of book title, ignored when null or empty
+	 * @param authors part of book authors, ignored when null or empty
+	 * @param status book status, ignored when null
+	 * @return books matching all given attributes, no books when all
+	 *         attributes are null
+	 */
 	List<BookTo> findBooksByAllFields(String title, String authors, BookStatus status);
+	/**
+	 * Live inventory, kept in memory and updated on every committed change
+	 *
+	 * @return number of books in every status
+	 */
+	Map<BookStatus, Long> countBooksByStatus();
+	/**
+	 * Catalog version, grows after every committed change of books. Equal
+	 * versions guarantee equal catalog content within one application run.
+	 *
+	 * @return number of committed book changes since start
+	 */
+	long getCatalogVersion();
 }
@@ -0,0 +1,131 @@
+package pl.spring.demo.service.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import pl.spring.demo.mapper.BookMapper;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Cache of books by id, evicting least recently used books above configured
+ * capacity. Counters are exported over JMX to help sizing it. Ids of deleted
+ * books are remembered, book ids are never reused, so a stale read or save
+ * applied after delete can not bring deleted book back.
+ */
+@Component
+@ManagedResource(objectName = "pl.spring.demo:type=Cache,name=bookCache", description = "Books by id cache")
+public class BookCache {
+
+	// deletes racing with reads or saves are recent, older tombstones can be dropped
+	private static final int MAX_DELETED_IDS = 100000;
+
+	private final LongKeyLruCache<BookTo> books;
+	private final LongKeyLruCache<Boolean> deletedIds = new LongKeyLruCache<Boolean>(MAX_DELETED_IDS);
+	private long clears;
+
+	@Autowired
+	public BookCache(@Value("${book.cache.capacity}") int capacity) {
+		this.books = new LongKeyLruCache<BookTo>(capacity);
+	}
+
+	/**
+	 * @param id
+	 *            - book id
+	 * @return copy of cached book, or null when book is not in cache
+	 */
+	public BookTo get(long id) {
+		BookTo book = books.get(id);
+		return book == null ? null : BookMapper.copy(book);
+	}
+
+	/**
+	 * @param book
+	 *            - book to cache, ignored when cached version of it is newer
+	 *            or when it was deleted
+	 */
+	public synchronized void put(BookTo book) {
+		if (deletedIds.get(book.getId()) == null) {
+			books.merge(book.getId(), BookMapper.copy(book),
+					(cachedBook, newBook) -> BookMapper.isOlder(newBook, cachedBook) ? cachedBook : newBook);
+		}
+	}
+
+	/**
+	 * @return number of times cache was cleared, taken before reading a book
+	 *         for {@link #putIfAbsent(BookTo, long)}
+	 */
+	public synchronized long getClears() {
+		return clears;
+	}
+
+	/**
+	 * Caches book read from database, unless other version of it was cached
+	 * meanwhile, e.g. by commit of concurrent save, or it was deleted, or
+	 * cache was cleared, after it was read
+	 *
+	 * @param book
+	 *            - book read from database
+	 * @param clearsBeforeRead
+	 *            - {@link #getClears()} taken before book was read
+	 * @return copy of book kept in cache, or of given book when it was not
+	 *         cached
+	 */
+	public synchronized BookTo putIfAbsent(BookTo book, long clearsBeforeRead) {
+		if (clearsBeforeRead != clears || deletedIds.get(book.getId()) != null) {
+			return BookMapper.copy(book);
+		}
+		return BookMapper.copy(books.merge(book.getId(), BookMapper.copy(book), (cachedBook, newBook) -> cachedBook));
+	}
+
+	/**
+	 * @param id
+	 *            - id of book to remove, next lookup reads it from database
+	 */
+	public void evict(long id) {
+		books.remove(id);
+	}
+
+	/**
+	 * @param id
+	 *            - id of deleted book, it is not cached again
+	 */
+	public synchronized void delete(long id) {
+		deletedIds.put(id, Boolean.TRUE);
+		books.remove(id);
+	}
+
+	@ManagedOperation(description = "Removes all books from cache")
+	public synchronized void clear() {
+		books.clear();
+		clears++;
+	}
+
+	@ManagedAttribute(description = "Number of cached books")
+	public int getSize() {
+		return books.size();
+	}
+
+	@ManagedAttribute(description = "Maximal number of cached books")
+	public int getCapacity() {
+		return books.getCapacity();
+	}
+
+	@ManagedAttribute(description = "Number of lookups answered from cache")
+	public long getHits() {
+		return books.getHits();
+	}
+
+	@ManagedAttribute(description = "Number of lookups which had to reach database")
+	public long getMisses() {
+		return books.getMisses();
+	}
+
+	@ManagedAttribute(description = "Number of books removed to make space for others")
+	public long getEvictions() {
+		return books.getEvictions();
+	}
+}
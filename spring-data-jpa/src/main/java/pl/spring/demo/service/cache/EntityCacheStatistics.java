@@ -0,0 +1,75 @@
+package pl.spring.demo.service.cache;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate second level and query cache counters, exported over JMX. Counts
+ * are collected only when hibernate.generate_statistics is enabled.
+ */
+@Component
+@ManagedResource(objectName = "pl.spring.demo:type=Cache,name=entityCache", description = "Hibernate second level and query cache")
+public class EntityCacheStatistics {
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final Statistics statistics;
+
+	@Autowired
+	public EntityCacheStatistics(EntityManagerFactory entityManagerFactory) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@ManagedAttribute(description = "Number of entities found in second level cache")
+	public long getSecondLevelCacheHits() {
+		return statistics.getSecondLevelCacheHitCount();
+	}
+
+	@ManagedAttribute(description = "Number of entities looked up in second level cache and loaded from database")
+	public long getSecondLevelCacheMisses() {
+		return statistics.getSecondLevelCacheMissCount();
+	}
+
+	@ManagedAttribute(description = "Number of entities put into second level cache")
+	public long getSecondLevelCachePuts() {
+		return statistics.getSecondLevelCachePutCount();
+	}
+
+	@ManagedAttribute(description = "Number of query results found in query cache")
+	public long getQueryCacheHits() {
+		return statistics.getQueryCacheHitCount();
+	}
+
+	@ManagedAttribute(description = "Number of cacheable queries executed against database")
+	public long getQueryCacheMisses() {
+		return statistics.getQueryCacheMissCount();
+	}
+
+	@ManagedAttribute(description = "Number of query results put into query cache")
+	public long getQueryCachePuts() {
+		return statistics.getQueryCachePutCount();
+	}
+
+	@ManagedAttribute(description = "Names of second level cache regions")
+	public String[] getRegionNames() {
+		return statistics.getSecondLevelCacheRegionNames();
+	}
+
+	@ManagedOperation(description = "Removes all entities and query results from cache")
+	public void clear() {
+		entityManagerFactory.getCache().evictAll();
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+	}
+
+	@ManagedOperation(description = "Resets all hibernate statistics")
+	public void resetStatistics() {
+		statistics.clear();
+	}
+}
@@ -0,0 +1,189 @@
+package pl.spring.demo.service.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+
+/**
+ * Bounded cache with primitive long keys, which evicts least recently used
+ * entry when it is full. Keys are never boxed, entries are kept in own hash
+ * table linked into access ordered list. All operations are synchronized,
+ * statistics can be read without locking.
+ *
+ * @param <V>
+ *            type of cached values
+ */
+public class LongKeyLruCache<V> {
+
+	private final int capacity;
+	private final Entry<V>[] buckets;
+	private final Entry<V> head = new Entry<V>(0L, null);
+	private int size;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	public LongKeyLruCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be positive, was " + capacity);
+		}
+		this.capacity = capacity;
+		this.buckets = new Entry[tableSizeFor(capacity)];
+		head.before = head;
+		head.after = head;
+	}
+
+	/**
+	 * @param key
+	 *            - key of value
+	 * @return cached value or null when it is not in cache
+	 */
+	public synchronized V get(long key) {
+		Entry<V> entry = find(key);
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		unlink(entry);
+		linkFirst(entry);
+		return entry.value;
+	}
+
+	public synchronized void put(long key, V value) {
+		Entry<V> entry = find(key);
+		if (entry != null) {
+			entry.value = value;
+			unlink(entry);
+			linkFirst(entry);
+			return;
+		}
+		entry = new Entry<V>(key, value);
+		int index = indexFor(key);
+		entry.next = buckets[index];
+		buckets[index] = entry;
+		linkFirst(entry);
+		if (++size > capacity) {
+			Entry<V> eldest = head.before;
+			removeEntry(eldest);
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Puts value when key is not cached, otherwise replaces cached value with
+	 * result of given function
+	 *
+	 * @param key
+	 *            - key of value
+	 * @param value
+	 *            - new value
+	 * @param remapping
+	 *            - gets cached and new value, returns value to keep
+	 * @return value kept in cache
+	 */
+	public synchronized V merge(long key, V value, BinaryOperator<V> remapping) {
+		Entry<V> entry = find(key);
+		V merged = entry == null ? value : remapping.apply(entry.value, value);
+		put(key, merged);
+		return merged;
+	}
+
+	public synchronized void remove(long key) {
+		Entry<V> entry = find(key);
+		if (entry != null) {
+			removeEntry(entry);
+		}
+	}
+
+	public synchronized void clear() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = null;
+		}
+		head.before = head;
+		head.after = head;
+		size = 0;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	private Entry<V> find(long key) {
+		for (Entry<V> entry = buckets[indexFor(key)]; entry != null; entry = entry.next) {
+			if (entry.key == key) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private void removeEntry(Entry<V> entry) {
+		int index = indexFor(entry.key);
+		Entry<V> previous = null;
+		for (Entry<V> current = buckets[index]; current != null; previous = current, current = current.next) {
+			if (current == entry) {
+				if (previous == null) {
+					buckets[index] = current.next;
+				} else {
+					previous.next = current.next;
+				}
+				break;
+			}
+		}
+		unlink(entry);
+		size--;
+	}
+
+	private void linkFirst(Entry<V> entry) {
+		entry.after = head.after;
+		entry.before = head;
+		head.after.before = entry;
+		head.after = entry;
+	}
+
+	private static <V> void unlink(Entry<V> entry) {
+		entry.before.after = entry.after;
+		entry.after.before = entry.before;
+	}
+
+	private int indexFor(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & (buckets.length - 1);
+	}
+
+	private static int tableSizeFor(int capacity) {
+		int tableSize = Integer.highestOneBit(capacity) << 1;
+		return tableSize > 0 ? tableSize : 1 << 30;
+	}
+
+	private static final class Entry<V> {
+		private final long key;
+		private V value;
+		private Entry<V> next;
+		private Entry<V> before;
+		private Entry<V> after;
+
+		private Entry(long key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+}
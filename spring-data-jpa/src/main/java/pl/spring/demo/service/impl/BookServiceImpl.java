@@ -1,124 +1,357 @@
 package pl.spring.demo.service.impl;
 
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import pl.spring.demo.entity.AuthorEntity;
 import pl.spring.demo.entity.BookEntity;
 import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.mapper.AuthorMapper;
 import pl.spring.demo.mapper.BookMapper;
+import pl.spring.demo.repository.AuthorRepository;
 import pl.spring.demo.repository.BookRepository;
 import pl.spring.demo.service.BookService;
+import pl.spring.demo.service.cache.BookCache;
+import pl.spring.demo.service.search.BookSearchIndex;
+import pl.spring.demo.service.stats.BookInventory;
+import pl.spring.demo.to.AuthorTo;
 import pl.spring.demo.to.BookTo;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
-public class BookServiceImpl implements BookService {
+public class BookServiceImpl implements BookService, InitializingBean {
+
+	private static final int STREAM_CHUNK_SIZE = 100;
+	// same as hibernate.jdbc.batch_size, so every chunk is flushed as full batches
+	private static final int SAVE_CHUNK_SIZE = 50;
+	private static final int AUTHOR_LOOKUP_CHUNK_SIZE = 1000;
+	private static final int VERSION_LOOKUP_CHUNK_SIZE = 1000;
 
 	@Autowired
 	private BookRepository bookRepository;
+	@Autowired
+	private AuthorRepository authorRepository;
+	@Autowired
+	private BookSearchIndex searchIndex;
+	@Autowired
+	private BookCache bookCache;
+	@Autowired
+	private BookInventory inventory;
+
+	private final AtomicLong catalogVersion = new AtomicLong();
+
+	/**
+	 * Loads all books into search index and counts them by status, so
+	 * searches and statistics never reach database. Spring callback is used
+	 * instead of javax.annotation.PostConstruct, which is not part of JDK 11
+	 * and later.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		searchIndex.rebuild(bookRepository.findAllBookTos());
+		Map<BookStatus, Long> booksByStatus = new EnumMap<BookStatus, Long>(BookStatus.class);
+		for (Object[] row : bookRepository.countBooksByStatus()) {
+			if (row[0] != null) {
+				booksByStatus.put((BookStatus) row[0], (Long) row[1]);
+			}
+		}
+		inventory.reset(booksByStatus);
+	}
 
 	@Override
 	public List<BookTo> findAllBooks() {
-		return BookMapper.map2To(bookRepository.findAll());
+		return bookRepository.findAllBookTos();
+	}
+
+	@Override
+	public List<BookTo> findBooks(Long afterId, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Page limit must be positive, was " + limit);
+		}
+		Long lastSeenId = afterId == null ? Long.valueOf(0L) : afterId;
+		return bookRepository.findBookTosAfter(lastSeenId, new PageRequest(0, Math.min(limit, MAX_PAGE_SIZE)));
+	}
+
+	@Override
+	public void streamAllBooks(Consumer<BookTo> consumer) {
+		bookRepository.forEachBook(STREAM_CHUNK_SIZE, consumer);
 	}
 
 	@Override
 	public List<BookTo> findBooksByTitle(String title) {
-		return BookMapper.map2To(bookRepository.findBookByTitle(title));
+		return searchIndex.findByTitle(title);
 	}
 
 	@Override
 	public List<BookTo> findBooksByAuthor(String author) {
-		return BookMapper.map2To(bookRepository.findBookByAuthor(author));
+		return searchIndex.findByAuthor(author);
+	}
+
+	@Override
+	public List<AuthorTo> findAuthorsByName(String name) {
+		return AuthorMapper.map2To(authorRepository.findAuthorsByName(name));
+	}
+
+	@Override
+	public List<BookTo> findBooksOfAuthor(String name) {
+		return bookRepository.findBookTosOfAuthor(name);
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public int deleteUnusedAuthors() {
+		return authorRepository.deleteAuthorsWithoutBooks();
 	}
 
 	@Override
 	@Transactional(readOnly = false)
 	public BookTo saveBook(BookTo book) {
 		BookEntity entity = BookMapper.map(book);
-		entity = bookRepository.save(entity);
-		return BookMapper.map(entity);
+		fillMissingVersions(Collections.singletonList(entity));
+		linkAuthors(Collections.singletonList(entity));
+		// flushed at once, so returned book carries incremented version
+		entity = bookRepository.saveAndFlush(entity);
+		BookTo savedBook = BookMapper.map(entity);
+		afterCommit(() -> bookSaved(savedBook));
+		return savedBook;
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public List<BookTo> saveBooks(List<BookTo> books) {
+		List<BookEntity> entities = BookMapper.map2Entity(books);
+		fillMissingVersions(entities);
+		linkAuthors(entities);
+		List<BookTo> savedBooks = BookMapper.map2To(bookRepository.saveInChunks(entities, SAVE_CHUNK_SIZE));
+		afterCommit(() -> savedBooks.forEach(this::bookSaved));
+		return savedBooks;
 	}
 
 	@Override
 	@Transactional(readOnly = false)
 	public void deleteBook(Long id) {
 		bookRepository.delete(id);
+		afterCommit(() -> bookDeleted(id));
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public BookTo loan(Long id) {
+		return changeStatus(id, EnumSet.of(BookStatus.FREE), BookStatus.LOAN);
+	}
 
+	@Override
+	@Transactional(readOnly = false)
+	public BookTo returnBook(Long id) {
+		return changeStatus(id, EnumSet.of(BookStatus.LOAN, BookStatus.MISSING), BookStatus.FREE);
 	}
 
 	@Override
+	@Transactional(readOnly = false)
+	public BookTo markMissing(Long id) {
+		return changeStatus(id, EnumSet.of(BookStatus.FREE, BookStatus.LOAN), BookStatus.MISSING);
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public int deleteBooks(Collection<Long> ids) {
+		List<Long> distinctIds = new ArrayList<Long>(new LinkedHashSet<Long>(ids));
+		distinctIds.remove(null);
+		// only ids of existing books are applied to in memory structures,
+		// ids which are not used yet must not be remembered as deleted
+		List<Long> deletedIds = new ArrayList<Long>(distinctIds.size());
+		for (int from = 0; from < distinctIds.size(); from += MAX_DELETE_BATCH_SIZE) {
+			int to = Math.min(from + MAX_DELETE_BATCH_SIZE, distinctIds.size());
+			List<Long> existingIds = bookRepository.findVersionsByIds(distinctIds.subList(from, to)).stream()
+					.map(row -> (Long) row[0]).collect(Collectors.toList());
+			if (!existingIds.isEmpty()) {
+				bookRepository.deleteBooksByIds(existingIds);
+				deletedIds.addAll(existingIds);
+			}
+		}
+		afterCommit(() -> deletedIds.forEach(this::bookDeleted));
+		return deletedIds.size();
+	}
+
+	@Override
+	@Transactional(readOnly = false)
+	public void deleteAllBooks() {
+		bookRepository.deleteAllInBatch();
+		afterCommit(() -> {
+			searchIndex.clear();
+			bookCache.clear();
+			inventory.clear();
+			catalogVersion.incrementAndGet();
+		});
+	}
+
+	/**
+	 * Read through {@link BookCache}, cache hits do not open transaction.
+	 * Misses are primary key lookups, their result never replaces book
+	 * cached meanwhile by commit of concurrent change, and is not cached when
+	 * book was deleted after it was read.
+	 */
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public BookTo findBookById(Long id) {
-		return BookMapper.map(bookRepository.findBookById(id));
+		if (id == null) {
+			return null;
+		}
+		BookTo book = bookCache.get(id);
+		if (book == null) {
+			long clearsBeforeRead = bookCache.getClears();
+			book = BookMapper.map(bookRepository.findOne(id));
+			if (book != null) {
+				book = bookCache.putIfAbsent(book, clearsBeforeRead);
+			}
+		}
+		return book;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see pl.spring.demo.service.BookService#findBookByTitle(java.lang.String)
-	 * It can be done also by Query
+	/**
+	 * Answered from {@link BookInventory}, does not open transaction
 	 */
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public Map<BookStatus, Long> countBooksByStatus() {
+		return inventory.getBooksByStatus();
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public long getCatalogVersion() {
+		return catalogVersion.get();
+	}
+
 	@Override
 	public List<BookTo> findBooksByAllFields(String title, String authors, BookStatus status) {
-		List<BookEntity> allBooks = new ArrayList<BookEntity>();
-		allBooks.addAll(bookRepository.findAll());
-		Set<BookEntity> foundBookSet = new HashSet<BookEntity>();
-		
-		foundBookSet.addAll(findByTitle(allBooks,title));
-		foundBookSet.addAll(findByAuthors(allBooks, foundBookSet, authors));
-		foundBookSet.addAll(findByStatus(allBooks,foundBookSet,status));
-		
-		List<BookEntity> foundBookList = new ArrayList<BookEntity>();
-		foundBookList.addAll(foundBookSet);
-		return BookMapper.map2To(foundBookList);
-	}
-
-	private Set<BookEntity> findByStatus(List<BookEntity> allBooks, Set<BookEntity> foundBookSet, BookStatus status) {
-		if (status != null) {
-			boolean isFoundBookListEmpty = foundBookSet.isEmpty();
-			if (isFoundBookListEmpty) {
-				foundBookSet = allBooks.stream().filter(x -> x.getStatus() == status)
-						.collect(Collectors.toSet());
-			} else {
-				List<BookEntity> bufforList = new ArrayList<BookEntity>();
-				bufforList.addAll(foundBookSet);
-				foundBookSet = bufforList.stream().filter(x -> x.getStatus() == status)
-						.collect(Collectors.toSet());
-			}
+		return searchIndex.findByAllFields(title, authors, status);
+	}
+
+	/**
+	 * Applies committed save to in memory structures. Callbacks of
+	 * concurrent transactions run in any order, a save older than indexed
+	 * book was overtaken by newer one, and a save of book deleted meanwhile
+	 * is stale, both are skipped. Catalog version is increased last, so
+	 * readers never see new version with old content.
+	 */
+	private void bookSaved(BookTo book) {
+		BookTo previousBook = searchIndex.put(book);
+		if (previousBook == book) {
+			return;
 		}
-		return foundBookSet;
-	}
-
-	private Set<BookEntity> findByAuthors(List<BookEntity> allBooks, Set<BookEntity> foundBookSet, String authors) {
-		if (authors != "") {
-			boolean isFoundBookListEmpty = foundBookSet.isEmpty();
-			if (isFoundBookListEmpty) {
-				foundBookSet = allBooks.stream().filter(x -> x.getAuthors().toLowerCase().contains(authors.toLowerCase()))
-						.collect(Collectors.toSet());
-			} else {
-				List<BookEntity> bufforList = new ArrayList<BookEntity>();
-				bufforList.addAll(foundBookSet);
-				foundBookSet = bufforList.stream().filter(x -> x.getAuthors().equals(authors))
-						.collect(Collectors.toSet());
+		bookCache.put(book);
+		inventory.move(previousBook == null ? null : previousBook.getStatus(), book.getStatus());
+		catalogVersion.incrementAndGet();
+	}
+
+	/**
+	 * Applies committed delete to in memory structures
+	 */
+	private void bookDeleted(Long id) {
+		BookTo removedBook = searchIndex.remove(id);
+		bookCache.delete(id);
+		if (removedBook != null) {
+			inventory.move(removedBook.getStatus(), null);
+		}
+		catalogVersion.incrementAndGet();
+	}
+
+	/**
+	 * Changed book is read back in the same transaction, updated row stays
+	 * locked until commit, so in memory structures get exactly this change.
+	 */
+	private BookTo changeStatus(Long id, Set<BookStatus> expectedStatuses, BookStatus newStatus) {
+		if (id == null || bookRepository.changeStatus(id, expectedStatuses, newStatus) == 0) {
+			return null;
+		}
+		BookTo book = BookMapper.map(bookRepository.findOne(id));
+		afterCommit(() -> bookSaved(book));
+		return book;
+	}
+
+	/**
+	 * Updates sent without version are not checked for concurrent changes,
+	 * they get current version of stored book and overwrite it, as before
+	 * versions were introduced. Change committed between version lookup and
+	 * save still fails them with optimistic locking failure.
+	 */
+	private void fillMissingVersions(List<BookEntity> books) {
+		Map<Long, List<BookEntity>> unversionedBooks = books.stream()
+				.filter(book -> book.getId() != null && book.getVersion() == null)
+				.collect(Collectors.groupingBy(BookEntity::getId));
+		List<Long> ids = new ArrayList<Long>(unversionedBooks.keySet());
+		for (int from = 0; from < ids.size(); from += VERSION_LOOKUP_CHUNK_SIZE) {
+			int to = Math.min(from + VERSION_LOOKUP_CHUNK_SIZE, ids.size());
+			for (Object[] row : bookRepository.findVersionsByIds(ids.subList(from, to))) {
+				unversionedBooks.get(row[0]).forEach(book -> book.setVersion((Long) row[1]));
 			}
 		}
-		return foundBookSet;
 	}
 
-	private Set<BookEntity> findByTitle(List<BookEntity> allBooks, String title) {
-		Set<BookEntity> foundBooks = new HashSet<BookEntity>();
-		if (title != "") {
-			foundBooks = allBooks.stream().filter(x -> x.getTitle().toLowerCase().contains(title.toLowerCase())).collect(Collectors.toSet());
-			System.out.println(foundBooks.size());
+	/**
+	 * Links books with author entities named in their authors text. Authors
+	 * are merged first, so missing ones are created even when concurrent
+	 * save creates the same author, and existing ones are locked against
+	 * {@link #deleteUnusedAuthors()} until commit.
+	 */
+	private void linkAuthors(List<BookEntity> books) {
+		Map<String, String> namesBySearchName = new HashMap<String, String>();
+		books.forEach(book -> AuthorMapper.splitNames(book.getAuthors())
+				.forEach(name -> namesBySearchName.putIfAbsent(AuthorMapper.searchName(name), name)));
+		authorRepository.mergeAuthors(namesBySearchName);
+		List<String> namesToFind = new ArrayList<String>(namesBySearchName.keySet());
+		Map<String, AuthorEntity> authors = new HashMap<String, AuthorEntity>();
+		for (int from = 0; from < namesToFind.size(); from += AUTHOR_LOOKUP_CHUNK_SIZE) {
+			int to = Math.min(from + AUTHOR_LOOKUP_CHUNK_SIZE, namesToFind.size());
+			authorRepository.findAuthorsBySearchNames(namesToFind.subList(from, to))
+					.forEach(author -> authors.put(author.getSearchName(), author));
+		}
+		for (BookEntity book : books) {
+			Set<AuthorEntity> bookAuthors = new HashSet<AuthorEntity>();
+			AuthorMapper.splitNames(book.getAuthors())
+					.forEach(name -> bookAuthors.add(authors.get(AuthorMapper.searchName(name))));
+			book.setAuthorEntities(bookAuthors);
+		}
+	}
+
+	/**
+	 * Runs given action when current transaction commits, or at once when
+	 * there is no transaction. Rolled back changes never reach in memory
+	 * structures.
+	 */
+	private void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
 		}
-		return foundBooks;
 	}
 
 }
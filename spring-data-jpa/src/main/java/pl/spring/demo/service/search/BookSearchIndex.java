@@ -0,0 +1,207 @@
+package pl.spring.demo.service.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.mapper.BookMapper;
+import pl.spring.demo.service.cache.LongKeyLruCache;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * In memory search index of all books. Titles and authors are kept in trigram
+ * indexes, so substring and prefix searches are answered without database
+ * access. Returned books are copies, changing them does not affect the index.
+ * Ids of removed books are remembered, book ids are never reused, so a save
+ * applied after delete of the same book can not bring it back.
+ */
+@Component
+public class BookSearchIndex {
+
+	// deletes racing with saves are recent, older tombstones can be dropped
+	private static final int MAX_DELETED_IDS = 100000;
+
+	private final Map<Long, BookTo> books = new HashMap<Long, BookTo>();
+	private final LongKeyLruCache<Boolean> deletedIds = new LongKeyLruCache<Boolean>(MAX_DELETED_IDS);
+	private final TrigramIndex titles = new TrigramIndex();
+	private final TrigramIndex authors = new TrigramIndex();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Replaces whole index content with given books
+	 *
+	 * @param allBooks
+	 *            - all books from database
+	 */
+	public void rebuild(Collection<BookTo> allBooks) {
+		lock.writeLock().lock();
+		try {
+			clearIndex();
+			allBooks.forEach(this::putBook);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Book older than indexed version of it, or removed meanwhile, is
+	 * ignored, changes committed concurrently may be applied in any order.
+	 *
+	 * @param book
+	 *            - new or changed book
+	 * @return previously indexed version of the book, null when it was not
+	 *         indexed, given book itself when it was ignored
+	 */
+	public BookTo put(BookTo book) {
+		lock.writeLock().lock();
+		try {
+			return putBook(book);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param id
+	 *            - id of deleted book
+	 * @return removed book, null when it was not indexed
+	 */
+	public BookTo remove(Long id) {
+		lock.writeLock().lock();
+		try {
+			deletedIds.put(id, Boolean.TRUE);
+			titles.remove(id);
+			authors.remove(id);
+			return books.remove(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			clearIndex();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param title
+	 *            - beginning of book title
+	 * @return books which titles start with given text, ordered by id, no
+	 *         books when title is null
+	 */
+	public List<BookTo> findByTitle(String title) {
+		if (title == null) {
+			return new ArrayList<BookTo>();
+		}
+		lock.readLock().lock();
+		try {
+			return copyOf(titles.findStartingWith(title));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param author
+	 *            - part of book authors
+	 * @return books which authors contain given text, ordered by id, no
+	 *         books when author is null
+	 */
+	public List<BookTo> findByAuthor(String author) {
+		if (author == null) {
+			return new ArrayList<BookTo>();
+		}
+		lock.readLock().lock();
+		try {
+			return copyOf(authors.findContaining(author));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Same semantics as
+	 * {@link pl.spring.demo.repository.BookSpecifications#hasAllFields},
+	 * except that no books are found when all attributes are null. Whole
+	 * catalog is read with empty title or author.
+	 *
+	 * @param title
+	 *            - part of book title, ignored when null or empty
+	 * @param author
+	 *            - part of book authors, ignored when null or empty
+	 * @param status
+	 *            - book status, ignored when null
+	 * @return books matching all given attributes, ordered by id
+	 */
+	public List<BookTo> findByAllFields(String title, String author, BookStatus status) {
+		if (title == null && author == null && status == null) {
+			return new ArrayList<BookTo>();
+		}
+		lock.readLock().lock();
+		try {
+			Set<Long> found = null;
+			if (title != null && !title.isEmpty()) {
+				found = titles.findContaining(title);
+			}
+			if (author != null && !author.isEmpty()) {
+				Set<Long> byAuthor = authors.findContaining(author);
+				if (found == null) {
+					found = byAuthor;
+				} else {
+					found.retainAll(byAuthor);
+				}
+			}
+			Collection<Long> candidates = found == null ? books.keySet() : found;
+			List<Long> ids = new ArrayList<Long>();
+			for (Long id : candidates) {
+				if (status == null || status == books.get(id).getStatus()) {
+					ids.add(id);
+				}
+			}
+			return copyOf(ids);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private BookTo putBook(BookTo book) {
+		Long id = book.getId();
+		BookTo indexedBook = books.get(id);
+		if (deletedIds.get(id) != null || indexedBook != null && BookMapper.isOlder(book, indexedBook)) {
+			return book;
+		}
+		titles.put(id, book.getTitle());
+		authors.put(id, book.getAuthors());
+		books.put(id, BookMapper.copy(book));
+		return indexedBook;
+	}
+
+	private void clearIndex() {
+		books.clear();
+		titles.clear();
+		authors.clear();
+	}
+
+	private List<BookTo> copyOf(Collection<Long> ids) {
+		List<Long> sortedIds = new ArrayList<Long>(ids);
+		Collections.sort(sortedIds);
+		List<BookTo> found = new ArrayList<BookTo>(sortedIds.size());
+		for (Long id : sortedIds) {
+			found.add(BookMapper.copy(books.get(id)));
+		}
+		return found;
+	}
+}
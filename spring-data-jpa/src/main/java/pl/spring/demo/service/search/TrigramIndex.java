@@ -0,0 +1,99 @@
+package pl.spring.demo.service.search;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * Inverted index of character trigrams, used to answer substring and prefix
+ * queries on short texts without scanning all of them. Matching is case
+ * insensitive. Not thread safe, callers have to synchronize access.
+ */
+class TrigramIndex {
+
+	private static final int GRAM_LENGTH = 3;
+
+	private final Map<Long, String> texts = new HashMap<Long, String>();
+	private final Map<Long, Set<Long>> postings = new HashMap<Long, Set<Long>>();
+
+	void put(long id, String text) {
+		remove(id);
+		String normalized = normalize(text);
+		texts.put(id, normalized);
+		for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+			postings.computeIfAbsent(gram(normalized, i), key -> new HashSet<Long>()).add(id);
+		}
+	}
+
+	void remove(long id) {
+		String normalized = texts.remove(id);
+		if (normalized == null) {
+			return;
+		}
+		for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+			long gram = gram(normalized, i);
+			Set<Long> ids = postings.get(gram);
+			if (ids != null) {
+				ids.remove(id);
+				if (ids.isEmpty()) {
+					postings.remove(gram);
+				}
+			}
+		}
+	}
+
+	void clear() {
+		texts.clear();
+		postings.clear();
+	}
+
+	/**
+	 * @param fragment
+	 *            - text to find
+	 * @return ids of all texts containing given fragment
+	 */
+	Set<Long> findContaining(String fragment) {
+		return find(normalize(fragment), String::contains);
+	}
+
+	/**
+	 * @param prefix
+	 *            - text to find
+	 * @return ids of all texts starting with given prefix
+	 */
+	Set<Long> findStartingWith(String prefix) {
+		return find(normalize(prefix), String::startsWith);
+	}
+
+	private Set<Long> find(String query, BiPredicate<String, String> matcher) {
+		Set<Long> candidates = texts.keySet();
+		for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+			Set<Long> ids = postings.get(gram(query, i));
+			if (ids == null) {
+				return Collections.emptySet();
+			}
+			if (ids.size() < candidates.size()) {
+				candidates = ids;
+			}
+		}
+		Set<Long> found = new HashSet<Long>();
+		for (Long id : candidates) {
+			if (matcher.test(texts.get(id), query)) {
+				found.add(id);
+			}
+		}
+		return found;
+	}
+
+	private static long gram(String text, int start) {
+		return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.toUpperCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,75 @@
+package pl.spring.demo.service.stats;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import pl.spring.demo.enumerations.BookStatus;
+
+/**
+ * Live number of books in every status. Counters are adders, so concurrent
+ * updates do not contend and reading them never reaches database. Books
+ * without status are not counted.
+ */
+@Component
+public class BookInventory {
+
+	private final Map<BookStatus, LongAdder> counters = new EnumMap<BookStatus, LongAdder>(BookStatus.class);
+
+	public BookInventory() {
+		for (BookStatus status : BookStatus.values()) {
+			counters.put(status, new LongAdder());
+		}
+	}
+
+	/**
+	 * Replaces all counters, used when inventory is loaded from database
+	 *
+	 * @param booksByStatus
+	 *            - number of books by status, missing statuses are set to 0
+	 */
+	public void reset(Map<BookStatus, Long> booksByStatus) {
+		counters.forEach((status, counter) -> {
+			counter.reset();
+			Long books = booksByStatus.get(status);
+			if (books != null) {
+				counter.add(books);
+			}
+		});
+	}
+
+	public void clear() {
+		counters.values().forEach(LongAdder::reset);
+	}
+
+	/**
+	 * Moves one book between statuses
+	 *
+	 * @param previousStatus
+	 *            - status before change, null for new book
+	 * @param status
+	 *            - status after change, null for deleted book
+	 */
+	public void move(BookStatus previousStatus, BookStatus status) {
+		if (previousStatus == status) {
+			return;
+		}
+		if (previousStatus != null) {
+			counters.get(previousStatus).decrement();
+		}
+		if (status != null) {
+			counters.get(status).increment();
+		}
+	}
+
+	/**
+	 * @return current number of books in every status
+	 */
+	public Map<BookStatus, Long> getBooksByStatus() {
+		Map<BookStatus, Long> booksByStatus = new EnumMap<BookStatus, Long>(BookStatus.class);
+		counters.forEach((status, counter) -> booksByStatus.put(status, counter.sum()));
+		return booksByStatus;
+	}
+}
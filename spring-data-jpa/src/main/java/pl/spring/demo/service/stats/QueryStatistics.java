@@ -0,0 +1,89 @@
+package pl.spring.demo.service.stats;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import pl.spring.demo.jpa.QueryRecordingStatistics;
+import pl.spring.demo.jpa.QueryScope;
+import pl.spring.demo.jpa.QueryStatisticsFactory;
+import pl.spring.demo.to.QueryStatisticsTo;
+import pl.spring.demo.to.RequestQueryStatisticsTo;
+
+/**
+ * Per query execution statistics and per request statement counts, collected
+ * when hibernate.generate_statistics is enabled and
+ * hibernate.stats.factory is {@link QueryStatisticsFactory}
+ */
+@Component
+public class QueryStatistics {
+
+	private final QueryRecordingStatistics statistics;
+
+	@Autowired
+	public QueryStatistics(EntityManagerFactory entityManagerFactory) {
+		Statistics hibernateStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		if (!(hibernateStatistics instanceof QueryRecordingStatistics)) {
+			throw new IllegalStateException("hibernate.stats.factory has to be set to "
+					+ QueryStatisticsFactory.class.getName());
+		}
+		this.statistics = (QueryRecordingStatistics) hibernateStatistics;
+	}
+
+	/**
+	 * @param name
+	 *            - name of request, e.g. handler method
+	 * @return new scope attached to current thread
+	 */
+	public QueryScope openScope(String name) {
+		QueryScope scope = new QueryScope(name);
+		scope.attach();
+		return scope;
+	}
+
+	/**
+	 * Detaches scope from current thread and records its statements. Scopes
+	 * with more statements than limit are logged.
+	 *
+	 * @param scope
+	 *            - scope opened by {@link #openScope(String)}
+	 */
+	public void closeScope(QueryScope scope) {
+		QueryScope.detach();
+		statistics.scopeFinished(scope);
+	}
+
+	/**
+	 * @return statistics of executed queries, longest total time first
+	 */
+	public List<QueryStatisticsTo> getQueries() {
+		return statistics.getQueryStatistics();
+	}
+
+	/**
+	 * @return statement counts of finished requests, ordered by request name
+	 */
+	public List<RequestQueryStatisticsTo> getRequests() {
+		return statistics.getRequestStatistics();
+	}
+
+	public long getSlowThresholdMillis() {
+		return statistics.getSlowThresholdMillis();
+	}
+
+	public int getStatementsPerRequestLimit() {
+		return statistics.getStatementsPerRequestLimit();
+	}
+
+	/**
+	 * Forgets all query statistics, Hibernate counters included
+	 */
+	public void reset() {
+		statistics.clear();
+	}
+}
@@ -0,0 +1,17 @@
+create table book (
+    id bigint not null,
+    authors varchar(200) not null,
+    status varchar(255),
+    title varchar(50) not null,
+    primary key (id)
+);
+
+create table userentity (
+    id bigint not null,
+    password varchar(200) not null,
+    user_name varchar(50) not null,
+    primary key (id)
+);
+
+create sequence BOOK_ID_SEQ start with 1 increment by 50;
+create sequence USER_ID_SEQ start with 1 increment by 50;
@@ -3,4 +3,7 @@ insert into book (id, title, authors, status) values (2, 'Second book', 'Zbignie
 insert into book (id, title, authors, status) values (3, 'Third book', 'Janusz Jankowski', 'FREE');
 
 insert into userentity (id, user_name, password) values (1, 'admin', 'admin');
-insert into userentity (id, user_name, password) values (2, 'password', 'password');
\ No newline at end of file
+insert into userentity (id, user_name, password) values (2, 'password', 'password');
+
+alter sequence BOOK_ID_SEQ restart with 4;
+alter sequence USER_ID_SEQ restart with 3;
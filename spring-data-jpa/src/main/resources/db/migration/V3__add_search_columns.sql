@@ -0,0 +1,11 @@
+-- upper case copies of searched columns, kept up to date by entities,
+-- so prefix searches are index range scans instead of full scans of upper(...)
+alter table book add column search_title varchar(50);
+update book set search_title = upper(title);
+alter table book alter column search_title set not null;
+create index book_search_title_idx on book (search_title);
+
+alter table userentity add column search_user_name varchar(50);
+update userentity set search_user_name = upper(user_name);
+alter table userentity alter column search_user_name set not null;
+create index userentity_search_user_name_idx on userentity (search_user_name);
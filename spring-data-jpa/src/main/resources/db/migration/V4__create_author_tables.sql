@@ -0,0 +1,20 @@
+-- authors split out of book.authors text, filled for existing books by V5
+create table author (
+    id bigint not null,
+    name varchar(200) not null,
+    search_name varchar(200) not null,
+    primary key (id),
+    constraint author_search_name_uk unique (search_name)
+);
+
+create table book_author (
+    book_id bigint not null,
+    author_id bigint not null,
+    primary key (book_id, author_id),
+    constraint book_author_book_fk foreign key (book_id) references book (id) on delete cascade,
+    constraint book_author_author_fk foreign key (author_id) references author (id)
+);
+
+create index book_author_author_idx on book_author (author_id);
+
+create sequence AUTHOR_ID_SEQ start with 1 increment by 50;
@@ -0,0 +1,2 @@
+-- optimistic locking, every update of a book increments its version
+alter table book add column version bigint default 0 not null;
@@ -0,0 +1,63 @@
+package pl.spring.demo.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MonitoredDataSourceTest {
+
+	private BasicDataSource pool;
+	private MonitoredDataSource dataSource;
+
+	@Before
+	public void setUp() {
+		pool = new BasicDataSource();
+		pool.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+		pool.setUrl("jdbc:hsqldb:mem:pooltest");
+		pool.setUsername("sa");
+		pool.setMaxTotal(2);
+		dataSource = new MonitoredDataSource(pool);
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		pool.close();
+	}
+
+	@Test
+	public void testShouldReportBorrowedConnections() throws SQLException {
+		// when
+		Connection first = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+		// then
+		assertEquals(2, dataSource.getActiveConnections());
+		assertEquals(2, dataSource.getMaxConnections());
+		assertEquals(2L, dataSource.getConnectionRequests());
+		assertTrue(dataSource.getMaxWaitMillis() >= dataSource.getMeanWaitMillis());
+		// when
+		first.close();
+		second.close();
+		// then
+		assertEquals(0, dataSource.getActiveConnections());
+		assertEquals(2, dataSource.getIdleConnections());
+	}
+
+	@Test
+	public void testShouldResetStatistics() throws SQLException {
+		// given
+		dataSource.getConnection().close();
+		// when
+		dataSource.resetStatistics();
+		// then
+		assertEquals(0L, dataSource.getConnectionRequests());
+		assertEquals(0.0, dataSource.getMeanWaitMillis(), 0.0);
+		assertEquals(0.0, dataSource.getMaxWaitMillis(), 0.0);
+	}
+}
@@ -0,0 +1,143 @@
+package pl.spring.demo.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.spring.demo.to.QueryStatisticsTo;
+import pl.spring.demo.to.RequestQueryStatisticsTo;
+
+public class QueryRecordingStatisticsTest {
+
+	private QueryRecordingStatistics statistics;
+
+	@Before
+	public void setUp() {
+		statistics = new QueryRecordingStatistics(null, 50, 2);
+	}
+
+	@Test
+	public void testShouldSumExecutionsOfSameQuery() {
+		// when
+		statistics.queryExecuted("select book from BookEntity book", 10, 20);
+		statistics.queryExecuted("select book from BookEntity book", 5, 60);
+		statistics.queryExecuted("select author from AuthorEntity author", 1, 1);
+		// then
+		List<QueryStatisticsTo> queries = statistics.getQueryStatistics();
+		assertEquals(2, queries.size());
+		QueryStatisticsTo books = queries.get(0);
+		assertEquals("select book from BookEntity book", books.getQuery());
+		assertEquals(2, books.getExecutions());
+		assertEquals(15, books.getRows());
+		assertEquals(80.0, books.getTotalMillis(), 0.0);
+		assertEquals(40.0, books.getMeanMillis(), 0.0);
+		assertEquals(60.0, books.getMaxMillis(), 0.0);
+		assertEquals(1, books.getSlowExecutions());
+		assertEquals(0, queries.get(1).getSlowExecutions());
+	}
+
+	@Test
+	public void testShouldMeasureQueryShorterThanMillisecond() {
+		// given
+		statistics.prepareStatement();
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < 100000) {
+			// statement executes for at least 0.1 ms
+		}
+		// when
+		statistics.queryExecuted("select book from BookEntity book", 1, 0);
+		// then
+		QueryStatisticsTo books = statistics.getQueryStatistics().get(0);
+		assertTrue(books.getTotalMillis() >= 0.1);
+		assertTrue(books.getTotalMillis() < 1.0);
+		assertEquals(books.getTotalMillis(), books.getMaxMillis(), 0.0);
+	}
+
+	@Test
+	public void testShouldKeepMeasuredTimeWithinMillisecondReportedByHibernate() {
+		// given
+		statistics.prepareStatement();
+		// when
+		statistics.queryExecuted("select book from BookEntity book", 1, 20);
+		statistics.queryExecuted("select author from AuthorEntity author", 1, 0);
+		// then
+		List<QueryStatisticsTo> queries = statistics.getQueryStatistics();
+		assertEquals(20.0, queries.get(0).getTotalMillis(), 0.0);
+		assertEquals(0.0, queries.get(1).getTotalMillis(), 0.0);
+	}
+
+	@Test
+	public void testShouldGroupQueriesAboveLimit() {
+		// given
+		for (int i = 0; i < 1000; i++) {
+			statistics.queryExecuted("select book from BookEntity book where book.id = " + i, 1, 1);
+		}
+		// when
+		statistics.queryExecuted("select book from BookEntity book where book.id = 1000", 1, 60);
+		statistics.queryExecuted("select book from BookEntity book where book.id = 1001", 1, 70);
+		// then
+		List<QueryStatisticsTo> queries = statistics.getQueryStatistics();
+		assertEquals(1001, queries.size());
+		assertEquals("(other queries)", queries.get(0).getQuery());
+		assertEquals(2, queries.get(0).getExecutions());
+		assertEquals(2, queries.get(0).getSlowExecutions());
+	}
+
+	@Test
+	public void testShouldFlagScopeWithMoreStatementsThanLimit() {
+		// given
+		QueryScope single = new QueryScope("BookRestService.getBook");
+		QueryScope repeated = new QueryScope("BookRestService.getBooks");
+		// when
+		prepareStatements(single, 1);
+		prepareStatements(repeated, 3);
+		statistics.scopeFinished(single);
+		statistics.scopeFinished(repeated);
+		// then
+		List<RequestQueryStatisticsTo> requests = statistics.getRequestStatistics();
+		assertEquals(2, requests.size());
+		assertEquals("BookRestService.getBook", requests.get(0).getRequest());
+		assertEquals(0, requests.get(0).getFlagged());
+		assertEquals(1, requests.get(1).getFlagged());
+		assertEquals(3, requests.get(1).getMaxStatements());
+	}
+
+	@Test
+	public void testShouldNotCountStatementsOutsideScope() {
+		// given
+		QueryScope scope = new QueryScope("BookRestService.getBook");
+		prepareStatements(scope, 1);
+		// when
+		statistics.prepareStatement();
+		// then
+		assertEquals(1, scope.getStatements());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void testShouldForgetQueriesAndRequestsWhenCleared() {
+		// given
+		statistics.queryExecuted("select book from BookEntity book", 1, 1);
+		statistics.scopeFinished(new QueryScope("BookRestService.getBook"));
+		// when
+		statistics.clear();
+		// then
+		assertTrue(statistics.getQueryStatistics().isEmpty());
+		assertTrue(statistics.getRequestStatistics().isEmpty());
+	}
+
+	private void prepareStatements(QueryScope scope, int count) {
+		scope.attach();
+		try {
+			for (int i = 0; i < count; i++) {
+				statistics.prepareStatement();
+			}
+		} finally {
+			QueryScope.detach();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package pl.spring.demo.jpa;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = "../repository/CommonRepositoryTest-context.xml")
+public class SequenceAllocationCheckTest {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	public void testShouldAcceptSequencesIncrementedByAllocationSize() {
+		// when
+		new SequenceAllocationCheck(entityManagerFactory, dataSource).afterPropertiesSet();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testShouldRefuseSequenceIncrementedByLessThanAllocationSize() {
+		// given
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("alter sequence AUTHOR_ID_SEQ increment by 1");
+		try {
+			// when
+			new SequenceAllocationCheck(entityManagerFactory, dataSource).afterPropertiesSet();
+		} finally {
+			jdbcTemplate.execute("alter sequence AUTHOR_ID_SEQ increment by 50");
+		}
+	}
+}
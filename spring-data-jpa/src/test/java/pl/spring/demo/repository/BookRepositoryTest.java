@@ -1,17 +1,28 @@
 package pl.spring.demo.repository;
 
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
 import pl.spring.demo.entity.BookEntity;
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.BookTo;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.sql.Connection;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(locations = "CommonRepositoryTest-context.xml")
@@ -19,6 +30,10 @@ public class BookRepositoryTest {
 
     @Autowired
     private BookRepository bookRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private DataSource dataSource;
 
     @Test
     public void testShouldFindBookById() {
@@ -32,14 +47,81 @@ public class BookRepositoryTest {
     }
 
     @Test
-    public void testShouldFindBooksByTitle() {
+    public void testShouldFindBooksByAllFieldsInOneQuery() {
         // given
-        final String bookTitle = "p";
+        final String authors = "JAN";
+        final BookStatus status = BookStatus.FREE;
         // when
-        List<BookEntity> booksEntity = bookRepository.findBookByTitle(bookTitle);
+        List<BookEntity> booksEntity = bookRepository.findAll(BookSpecifications.hasAllFields("book", authors, status));
         // then
         assertNotNull(booksEntity);
-        assertFalse(booksEntity.isEmpty());
-        assertEquals("Pierwsza książka", booksEntity.get(0).getTitle());
+        assertEquals(2, booksEntity.size());
+    }
+
+    @Test
+    @Transactional
+    public void testShouldSelectBookTosWithoutManagedEntities() {
+        // when
+        List<BookTo> allBooks = bookRepository.findAllBookTos();
+        List<BookTo> secondPage = bookRepository.findBookTosAfter(1L, new PageRequest(0, 1));
+        // then
+        assertEquals(3, allBooks.size());
+        assertEquals("Third book", allBooks.get(2).getTitle());
+        assertEquals(1, secondPage.size());
+        assertEquals(Long.valueOf(2L), secondPage.get(0).getId());
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    public void testShouldLoadBooksReadOnlyInReadOnlyTransaction() {
+        // when
+        BookEntity bookEntity = bookRepository.findOne(2L);
+        // then
+        Session session = entityManager.unwrap(Session.class);
+        assertTrue(session.isReadOnly(bookEntity));
+        assertEquals(FlushMode.MANUAL, session.getFlushMode());
+        assertTrue(session.doReturningWork(Connection::isReadOnly));
+    }
+
+    @Test
+    @Transactional
+    public void testShouldKeepSearchTitleUpToDate() {
+        // given
+        BookEntity bookEntity = bookRepository.saveAndFlush(new BookEntity(null, "Fourth book", "author", BookStatus.FREE));
+        // when
+        bookEntity.setTitle("Changed title");
+        bookRepository.flush();
+        // then
+        assertEquals("CHANGED TITLE", bookEntity.getSearchTitle());
+        assertEquals(1L, countBooksWithSearchTitle("CHANGED%"));
+        assertEquals(0L, countBooksWithSearchTitle("FOURTH%"));
+    }
+
+    @Test
+    public void testShouldSearchTitlesWithIndex() {
+        // when
+        String plan = String.join("\n", new JdbcTemplate(dataSource).queryForList(
+                "explain plan for select * from book where search_title like concat(upper(?), '%')", String.class));
+        // then
+        assertTrue(plan, plan.contains("BOOK_SEARCH_TITLE_IDX"));
+    }
+
+    @Test
+    public void testShouldLoadBookByIdFromSecondLevelCache() {
+        // given
+        bookRepository.findOne(2L);
+        SqlRecordingInterceptor.clear();
+        // when
+        BookEntity bookEntity = bookRepository.findOne(2L);
+        // then
+        assertEquals("Second book", bookEntity.getTitle());
+        assertTrue(SqlRecordingInterceptor.getStatements().isEmpty());
+        assertTrue(entityManager.getEntityManagerFactory().getCache().contains(BookEntity.class, 2L));
+    }
+
+    private long countBooksWithSearchTitle(String pattern) {
+        return entityManager.createQuery("select count(book) from BookEntity book where book.searchTitle like :pattern",
+                Long.class).setParameter("pattern", pattern).getSingleResult();
     }
 }
@@ -0,0 +1,34 @@
+package pl.spring.demo.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Records every SQL statement prepared by Hibernate in tests, registered
+ * with hibernate.ejb.interceptor property
+ */
+public class SqlRecordingInterceptor extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> getStatements() {
+        synchronized (STATEMENTS) {
+            return new ArrayList<String>(STATEMENTS);
+        }
+    }
+}
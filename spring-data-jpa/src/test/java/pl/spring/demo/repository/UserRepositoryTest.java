@@ -3,6 +3,7 @@ package pl.spring.demo.repository;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
@@ -43,4 +44,32 @@ public class UserRepositoryTest {
 		assertFalse(usersEntity.isEmpty());
 		assertEquals(userName, usersEntity.get(0).getUserName());
 	}
+
+	@Test
+	public void testShouldAnswerRepeatedSearchFromQueryCache() {
+		// given
+		List<UserEntity> firstResult = userRepository.findUsersByName("admin");
+		SqlRecordingInterceptor.clear();
+		// when
+		List<UserEntity> secondResult = userRepository.findUsersByName("admin");
+		// then
+		assertEquals(1, secondResult.size());
+		assertEquals(firstResult.get(0).getId(), secondResult.get(0).getId());
+		assertTrue(SqlRecordingInterceptor.getStatements().isEmpty());
+	}
+
+	@Test
+	public void testShouldInvalidateQueryCacheOnWrite() {
+		// given
+		userRepository.findUsersByName("cached");
+		UserEntity userEntity = userRepository.save(new UserEntity(null, "cachedUser", "password"));
+		try {
+			// when
+			List<UserEntity> usersEntity = userRepository.findUsersByName("cached");
+			// then
+			assertEquals(1, usersEntity.size());
+		} finally {
+			userRepository.delete(userEntity.getId());
+		}
+	}
 }
@@ -1,26 +1,70 @@
 package pl.spring.demo.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import pl.spring.demo.entity.BookEntity;
 import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.mapper.BookMapper;
+import pl.spring.demo.repository.BookRepository;
+import pl.spring.demo.repository.SqlRecordingInterceptor;
+import pl.spring.demo.service.cache.BookCache;
+import pl.spring.demo.service.cache.EntityCacheStatistics;
+import pl.spring.demo.to.AuthorTo;
 import pl.spring.demo.to.BookTo;
 
 @RunWith(SpringJUnit4ClassRunner.class)
-@ContextConfiguration(locations = "CommonServicetest-context.xml")
+@ContextConfiguration(locations = "CommonServiceTest-context.xml")
 public class BookServiceTest {
 
 	@Autowired
 	private BookService bookService;
+	@Autowired
+	private BookCache bookCache;
+	@Autowired
+	private BookRepository bookRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private EntityCacheStatistics entityCacheStatistics;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private List<Long> savedBookIds = new ArrayList<Long>();
+
+	@After
+	public void tearDown() {
+		savedBookIds.forEach(bookService::deleteBook);
+	}
 
 	@Test
 	public void testFindBooksByAllFieldsUsingAllFields() {
@@ -29,12 +73,13 @@ public class BookServiceTest {
 		String titleToFind = "first";
 		String authorsToFind = "author";
 		BookStatus statusToFind = BookStatus.FREE;
-		BookEntity book1 = new BookEntity(1L, titleToFind, authorsToFind, statusToFind);
-		BookEntity book2 = new BookEntity(2L, "second", "author2", BookStatus.FREE);
-		BookEntity book3 = new BookEntity(3L, "third", "author3", BookStatus.FREE);
+		BookEntity book1 = new BookEntity(null, titleToFind, authorsToFind, statusToFind);
+		BookEntity book2 = new BookEntity(null, "second", "author2", BookStatus.FREE);
+		BookEntity book3 = new BookEntity(null, "third", "author3", BookStatus.FREE);
 		bookList.add(book1);
 		bookList.add(book2);
 		bookList.add(book3);
+		bookList.forEach(book -> savedBookIds.add(bookService.saveBook(BookMapper.map(book)).getId()));
 		List<BookTo> foundBookList = new ArrayList<BookTo>();
 		// when
 		foundBookList = bookService.findBooksByAllFields(titleToFind, authorsToFind, statusToFind);
@@ -42,4 +87,416 @@ public class BookServiceTest {
 		assertEquals(1, foundBookList.size());
 	}
 
+	@Test
+	public void testFindBooksByAllFieldsIgnoresEmptyFields() {
+		// given
+		String authorsToFind = "jan";
+		// when
+		List<BookTo> foundBookList = bookService.findBooksByAllFields("", authorsToFind, null);
+		// then
+		assertEquals(2, foundBookList.size());
+		assertEquals("Jan Kowalski", foundBookList.get(0).getAuthors());
+		assertEquals("Janusz Jankowski", foundBookList.get(1).getAuthors());
+	}
+
+	@Test
+	public void testFindBooksWithoutSearchedTextFindsNothing() {
+		// when
+		List<BookTo> byTitle = bookService.findBooksByTitle(null);
+		List<BookTo> byAuthor = bookService.findBooksByAuthor(null);
+		List<BookTo> byAllFields = bookService.findBooksByAllFields(null, null, null);
+		// then
+		assertTrue(byTitle.isEmpty());
+		assertTrue(byAuthor.isEmpty());
+		assertTrue(byAllFields.isEmpty());
+		assertEquals(3, bookService.findBooksByAllFields("", null, null).size());
+	}
+
+	@Test
+	public void testFindBooksPageByPage() {
+		// when
+		List<BookTo> firstPage = bookService.findBooks(null, 2);
+		List<BookTo> secondPage = bookService.findBooks(firstPage.get(1).getId(), 2);
+		// then
+		assertEquals(2, firstPage.size());
+		assertEquals(Long.valueOf(1L), firstPage.get(0).getId());
+		assertEquals(Long.valueOf(2L), firstPage.get(1).getId());
+		assertEquals(1, secondPage.size());
+		assertEquals(Long.valueOf(3L), secondPage.get(0).getId());
+	}
+
+	@Test
+	public void testStreamAllBooks() {
+		// given
+		List<BookTo> streamedBooks = new ArrayList<BookTo>();
+		// when
+		bookService.streamAllBooks(streamedBooks::add);
+		// then
+		assertEquals(3, streamedBooks.size());
+		assertEquals("First book", streamedBooks.get(0).getTitle());
+		assertEquals("Third book", streamedBooks.get(2).getTitle());
+	}
+
+	@Test
+	public void testFindBookByIdReadsThroughCache() {
+		// given
+		bookCache.clear();
+		long hits = bookCache.getHits();
+		long misses = bookCache.getMisses();
+		// when
+		BookTo firstRead = bookService.findBookById(2L);
+		BookTo secondRead = bookService.findBookById(2L);
+		// then
+		assertEquals("Second book", firstRead.getTitle());
+		assertEquals("Second book", secondRead.getTitle());
+		assertEquals(misses + 1, bookCache.getMisses());
+		assertEquals(hits + 1, bookCache.getHits());
+	}
+
+	@Test
+	public void testFindBookByIdUsesPrimaryKeyLookup() {
+		// given
+		bookCache.evict(3L);
+		entityManagerFactory.getCache().evict(BookEntity.class, 3L);
+		SqlRecordingInterceptor.clear();
+		// when
+		BookTo book = bookService.findBookById(3L);
+		// then
+		List<String> statements = SqlRecordingInterceptor.getStatements();
+		assertEquals("Third book", book.getTitle());
+		assertEquals(1, statements.size());
+		String sql = statements.get(0).toLowerCase().replaceAll("\\s+", " ");
+		assertTrue(sql, sql.matches(".* from book \\w+ where \\w+\\.id=\\?"));
+		assertFalse(sql, sql.contains(" like "));
+	}
+
+	@Test
+	public void testFindBookByIdFallsBackToSecondLevelCache() {
+		// given
+		bookCache.evict(2L);
+		bookService.findBookById(2L);
+		bookCache.evict(2L);
+		long hits = entityCacheStatistics.getSecondLevelCacheHits();
+		SqlRecordingInterceptor.clear();
+		// when
+		BookTo book = bookService.findBookById(2L);
+		// then
+		assertEquals("Second book", book.getTitle());
+		assertTrue(SqlRecordingInterceptor.getStatements().isEmpty());
+		assertEquals(hits + 1, entityCacheStatistics.getSecondLevelCacheHits());
+	}
+
+	@Test(expected = OptimisticLockingFailureException.class)
+	public void testSaveBookWithStaleVersionFails() {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("edited twice", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		BookTo firstEdit = BookMapper.copy(book);
+		firstEdit.setTitle("first edit");
+		BookTo secondEdit = BookMapper.copy(book);
+		secondEdit.setTitle("second edit");
+		bookService.saveBook(firstEdit);
+		// when
+		bookService.saveBook(secondEdit);
+	}
+
+	@Test
+	public void testSaveBookWithoutVersionOverwritesBook() {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("edited", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		book.setTitle("versioned edit");
+		BookTo versionedEdit = bookService.saveBook(book);
+		// when
+		BookTo unversionedEdit = bookService.saveBook(new BookTo(book.getId(), "unversioned edit", "author",
+				BookStatus.LOAN));
+		// then
+		assertEquals(book.getVersion() + 1, versionedEdit.getVersion().longValue());
+		assertEquals(book.getId(), unversionedEdit.getId());
+		assertEquals(versionedEdit.getVersion() + 1, unversionedEdit.getVersion().longValue());
+		assertEquals("unversioned edit", bookService.findBookById(book.getId()).getTitle());
+	}
+
+	@Test
+	public void testLoanReturnAndMarkMissing() {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("lent", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		// when
+		BookTo lentBook = bookService.loan(book.getId());
+		BookTo lentAgain = bookService.loan(book.getId());
+		BookTo missingBook = bookService.markMissing(book.getId());
+		BookTo returnedBook = bookService.returnBook(book.getId());
+		BookTo returnedAgain = bookService.returnBook(book.getId());
+		// then
+		assertEquals(BookStatus.LOAN, lentBook.getStatus());
+		assertEquals(book.getVersion() + 1, lentBook.getVersion().longValue());
+		assertNull(lentAgain);
+		assertEquals(BookStatus.MISSING, missingBook.getStatus());
+		assertEquals(BookStatus.FREE, returnedBook.getStatus());
+		assertNull(returnedAgain);
+		assertEquals(BookStatus.FREE, bookService.findBookById(book.getId()).getStatus());
+		assertNull(bookService.loan(-1L));
+	}
+
+	@Test
+	public void testConcurrentLoansLendBookOnce() throws Exception {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("wanted", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		Map<BookStatus, Long> before = bookService.countBooksByStatus();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Callable<BookTo>> loans = Collections.nCopies(8, () -> bookService.loan(book.getId()));
+		// when
+		List<Future<BookTo>> results = executor.invokeAll(loans);
+		executor.shutdown();
+		// then
+		long granted = 0;
+		for (Future<BookTo> result : results) {
+			granted += result.get() == null ? 0 : 1;
+		}
+		assertEquals(1, granted);
+		assertEquals(before.get(BookStatus.LOAN) + 1, bookService.countBooksByStatus().get(BookStatus.LOAN).longValue());
+	}
+
+	@Test
+	public void testCommittedChangesAppliedOutOfOrderKeepNewestBook() throws Exception {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("lent and returned", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		Map<BookStatus, Long> before = bookService.countBooksByStatus();
+		CountDownLatch loanCommitted = new CountDownLatch(1);
+		CountDownLatch returnApplied = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		// when
+		Future<BookTo> loan = executor.submit(() -> transaction.execute(status -> {
+			// registered before callback of loan, holds it back until return is applied
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					loanCommitted.countDown();
+					try {
+						returnApplied.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			return bookService.loan(book.getId());
+		}));
+		assertTrue(loanCommitted.await(10, TimeUnit.SECONDS));
+		BookTo returnedBook = bookService.returnBook(book.getId());
+		returnApplied.countDown();
+		BookTo lentBook = loan.get(10, TimeUnit.SECONDS);
+		executor.shutdown();
+		// then
+		assertEquals(BookStatus.LOAN, lentBook.getStatus());
+		assertEquals(BookStatus.FREE, returnedBook.getStatus());
+		assertEquals(returnedBook.getVersion(), bookService.findBookById(book.getId()).getVersion());
+		assertEquals(BookStatus.FREE, bookService.findBookById(book.getId()).getStatus());
+		assertEquals(1, bookService.findBooksByAllFields("lent and returned", null, BookStatus.FREE).size());
+		assertEquals(before, bookService.countBooksByStatus());
+	}
+
+	@Test
+	public void testSaveAppliedAfterConcurrentDeleteDoesNotBringBookBack() throws Exception {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("saved and deleted", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		Map<BookStatus, Long> before = bookService.countBooksByStatus();
+		CountDownLatch saveCommitted = new CountDownLatch(1);
+		CountDownLatch deleteApplied = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		// when
+		Future<BookTo> save = executor.submit(() -> transaction.execute(status -> {
+			// registered before callback of save, holds it back until delete is applied
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					saveCommitted.countDown();
+					try {
+						deleteApplied.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			book.setTitle("saved and deleted changed");
+			return bookService.saveBook(book);
+		}));
+		assertTrue(saveCommitted.await(10, TimeUnit.SECONDS));
+		bookService.deleteBook(book.getId());
+		savedBookIds.remove(book.getId());
+		deleteApplied.countDown();
+		save.get(10, TimeUnit.SECONDS);
+		executor.shutdown();
+		// then
+		assertNull(bookService.findBookById(book.getId()));
+		assertTrue(bookService.findBooksByTitle("saved and deleted").isEmpty());
+		assertEquals(before.get(BookStatus.FREE) - 1, bookService.countBooksByStatus().get(BookStatus.FREE).longValue());
+	}
+
+	@Test
+	public void testSaveAndDeleteKeepCacheUpToDate() {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("cached", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		bookService.findBookById(book.getId());
+		// when
+		book.setTitle("changed");
+		bookService.saveBook(book);
+		BookTo changedBook = bookService.findBookById(book.getId());
+		bookService.deleteBook(book.getId());
+		savedBookIds.remove(book.getId());
+		// then
+		assertEquals("changed", changedBook.getTitle());
+		assertNull(bookService.findBookById(book.getId()));
+	}
+
+	@Test
+	public void testSaveBooksInChunks() {
+		// given
+		BookTo existingBook = bookService.saveBook(new BookTo("batch existing", "author", BookStatus.FREE));
+		savedBookIds.add(existingBook.getId());
+		existingBook.setStatus(BookStatus.LOAN);
+		List<BookTo> books = new ArrayList<BookTo>();
+		books.add(existingBook);
+		for (int i = 0; i < 120; i++) {
+			books.add(new BookTo("batch book " + i, "batch author", BookStatus.FREE));
+		}
+		// when
+		List<BookTo> savedBooks = bookService.saveBooks(books);
+		savedBooks.stream().skip(1).forEach(book -> savedBookIds.add(book.getId()));
+		// then
+		assertEquals(121, savedBooks.size());
+		assertEquals(existingBook.getId(), savedBooks.get(0).getId());
+		assertEquals(BookStatus.LOAN, bookService.findBookById(existingBook.getId()).getStatus());
+		assertEquals("batch book 119", bookService.findBookById(savedBooks.get(120).getId()).getTitle());
+		assertEquals(120, bookService.findBooksByTitle("batch book").size());
+	}
+
+	@Test
+	public void testFindBooksOfAuthor() {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("written together", "Jan Kowalski, Anna Nowak-Zielinska", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		// when
+		List<BookTo> booksOfJan = bookService.findBooksOfAuthor("JAN KOWALSKI");
+		List<BookTo> booksOfAnna = bookService.findBooksOfAuthor("anna nowak-zielinska");
+		List<AuthorTo> authors = bookService.findAuthorsByName("anna");
+		// then
+		assertEquals(2, booksOfJan.size());
+		assertEquals(Long.valueOf(1L), booksOfJan.get(0).getId());
+		assertEquals(book.getId(), booksOfJan.get(1).getId());
+		assertEquals(1, booksOfAnna.size());
+		assertEquals(1, authors.size());
+		assertEquals("Anna Nowak-Zielinska", authors.get(0).getName());
+		assertTrue(bookService.findBooksOfAuthor("Jan").isEmpty());
+	}
+
+	@Test
+	public void testConcurrentSavesOfNewAuthorShareIt() throws Exception {
+		// given
+		int saves = 4;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(saves);
+		List<Future<BookTo>> savedBooks = new ArrayList<Future<BookTo>>();
+		try {
+			for (int i = 0; i < saves; i++) {
+				savedBooks.add(executor.submit(() -> {
+					start.await();
+					return bookService.saveBook(new BookTo("shared author", "Zofia Concurrent", BookStatus.FREE));
+				}));
+			}
+			// when
+			start.countDown();
+			for (Future<BookTo> savedBook : savedBooks) {
+				savedBookIds.add(savedBook.get(10, TimeUnit.SECONDS).getId());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		// then
+		assertEquals(1, bookService.findAuthorsByName("zofia concurrent").size());
+		assertEquals(saves, bookService.findBooksOfAuthor("Zofia Concurrent").size());
+	}
+
+	@Test
+	public void testDeleteUnusedAuthorsKeepsAuthorsWithBooks() {
+		// given
+		BookTo book = bookService.saveBook(new BookTo("last book", "Jan Kowalski, Olga Orphaned", BookStatus.FREE));
+		bookService.deleteBook(book.getId());
+		// when
+		int deleted = bookService.deleteUnusedAuthors();
+		// then
+		assertTrue(deleted >= 1);
+		assertTrue(bookService.findAuthorsByName("olga orphaned").isEmpty());
+		assertEquals(1, bookService.findAuthorsByName("jan kowalski").size());
+	}
+
+	@Test
+	public void testCountBooksByStatusFollowsChanges() {
+		// given
+		Map<BookStatus, Long> before = bookService.countBooksByStatus();
+		// when
+		BookTo book = bookService.saveBook(new BookTo("counted", "author", BookStatus.FREE));
+		savedBookIds.add(book.getId());
+		book.setStatus(BookStatus.LOAN);
+		bookService.saveBook(book);
+		Map<BookStatus, Long> afterLoan = bookService.countBooksByStatus();
+		bookService.deleteBook(book.getId());
+		savedBookIds.remove(book.getId());
+		Map<BookStatus, Long> afterDelete = bookService.countBooksByStatus();
+		// then
+		assertEquals(before.get(BookStatus.FREE), afterLoan.get(BookStatus.FREE));
+		assertEquals(before.get(BookStatus.LOAN) + 1, afterLoan.get(BookStatus.LOAN).longValue());
+		assertEquals(before, afterDelete);
+	}
+
+	@Test
+	public void testCatalogVersionGrowsOnCommittedChanges() {
+		// given
+		long before = bookService.getCatalogVersion();
+		// when
+		BookTo book = bookService.saveBook(new BookTo("versioned", "author", BookStatus.FREE));
+		long afterSave = bookService.getCatalogVersion();
+		bookService.findBookById(book.getId());
+		long afterRead = bookService.getCatalogVersion();
+		bookService.deleteBook(book.getId());
+		long afterDelete = bookService.getCatalogVersion();
+		// then
+		assertTrue(afterSave > before);
+		assertEquals(afterSave, afterRead);
+		assertTrue(afterDelete > afterSave);
+	}
+
+	@Test
+	public void testDeleteBooksByIds() {
+		// given
+		Long firstId = bookService.saveBook(new BookTo("to delete", "author", BookStatus.FREE)).getId();
+		Long secondId = bookService.saveBook(new BookTo("to delete", "author", BookStatus.FREE)).getId();
+		Long keptId = bookService.saveBook(new BookTo("to keep", "author", BookStatus.FREE)).getId();
+		savedBookIds.add(keptId);
+		bookService.findBookById(firstId);
+		// when
+		int deleted = bookService.deleteBooks(Arrays.asList(firstId, secondId, firstId, Long.MAX_VALUE));
+		// then
+		assertEquals(2, deleted);
+		assertNull(bookService.findBookById(firstId));
+		assertNull(bookService.findBookById(secondId));
+		assertEquals(0, bookService.findBooksByTitle("to delete").size());
+		assertEquals(1, bookService.findBooksByTitle("to keep").size());
+	}
+
+	@Test
+	@Transactional
+	public void testDeleteAllBooks() {
+		// when
+		bookService.deleteAllBooks();
+		// then
+		assertEquals(0, bookRepository.count());
+	}
+
 }
@@ -0,0 +1,67 @@
+package pl.spring.demo.service.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.BookTo;
+
+public class BookCacheTest {
+
+	private BookCache bookCache;
+
+	@Before
+	public void setUp() {
+		bookCache = new BookCache(10);
+		bookCache.put(new BookTo(1L, "Saved book", "Jan Kowalski", BookStatus.FREE, 2L));
+	}
+
+	@Test
+	public void testShouldIgnoreBookOlderThanCachedOne() {
+		// when
+		bookCache.put(new BookTo(1L, "Old book", "Jan Kowalski", BookStatus.LOAN, 1L));
+		// then
+		assertEquals("Saved book", bookCache.get(1L).getTitle());
+	}
+
+	@Test
+	public void testShouldKeepCachedBookWhenReadBookIsPutIfAbsent() {
+		// when
+		BookTo keptBook = bookCache.putIfAbsent(new BookTo(1L, "Read book", "Jan Kowalski", BookStatus.FREE, 1L),
+				bookCache.getClears());
+		bookCache.putIfAbsent(new BookTo(2L, "Other book", "Anna Nowak", BookStatus.FREE, 1L), bookCache.getClears());
+		// then
+		assertEquals("Saved book", keptBook.getTitle());
+		assertEquals(Long.valueOf(2L), bookCache.get(1L).getVersion());
+		assertEquals("Other book", bookCache.get(2L).getTitle());
+	}
+
+	@Test
+	public void testShouldNotCacheBookReadBeforeItWasDeleted() {
+		// given
+		long clearsBeforeRead = bookCache.getClears();
+		BookTo readBook = new BookTo(3L, "Deleted book", "Anna Nowak", BookStatus.FREE, 1L);
+		bookCache.delete(3L);
+		// when
+		BookTo returnedBook = bookCache.putIfAbsent(readBook, clearsBeforeRead);
+		bookCache.put(readBook);
+		// then
+		assertEquals("Deleted book", returnedBook.getTitle());
+		assertNull(bookCache.get(3L));
+	}
+
+	@Test
+	public void testShouldNotCacheBookReadBeforeCacheWasCleared() {
+		// given
+		long clearsBeforeRead = bookCache.getClears();
+		BookTo readBook = new BookTo(3L, "Deleted book", "Anna Nowak", BookStatus.FREE, 1L);
+		bookCache.clear();
+		// when
+		bookCache.putIfAbsent(readBook, clearsBeforeRead);
+		// then
+		assertNull(bookCache.get(3L));
+	}
+}
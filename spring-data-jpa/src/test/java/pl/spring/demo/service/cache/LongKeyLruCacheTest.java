@@ -0,0 +1,84 @@
+package pl.spring.demo.service.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class LongKeyLruCacheTest {
+
+	@Test
+	public void testShouldEvictLeastRecentlyUsedEntry() {
+		// given
+		LongKeyLruCache<String> cache = new LongKeyLruCache<String>(2);
+		cache.put(1L, "first");
+		cache.put(2L, "second");
+		cache.get(1L);
+		// when
+		cache.put(3L, "third");
+		// then
+		assertEquals(2, cache.size());
+		assertEquals("first", cache.get(1L));
+		assertNull(cache.get(2L));
+		assertEquals("third", cache.get(3L));
+		assertEquals(1, cache.getEvictions());
+	}
+
+	@Test
+	public void testShouldCountHitsAndMisses() {
+		// given
+		LongKeyLruCache<String> cache = new LongKeyLruCache<String>(10);
+		cache.put(1L, "first");
+		// when
+		cache.get(1L);
+		cache.get(1L);
+		cache.get(2L);
+		// then
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testShouldReplaceAndRemoveEntries() {
+		// given
+		LongKeyLruCache<String> cache = new LongKeyLruCache<String>(10);
+		cache.put(1L, "first");
+		cache.put(-1L, "negative");
+		// when
+		cache.put(1L, "changed");
+		cache.remove(-1L);
+		// then
+		assertEquals(1, cache.size());
+		assertEquals("changed", cache.get(1L));
+		assertNull(cache.get(-1L));
+	}
+
+	@Test
+	public void testShouldMergeWithCachedValue() {
+		// given
+		LongKeyLruCache<String> cache = new LongKeyLruCache<String>(10);
+		cache.merge(1L, "first", (cached, value) -> cached + value);
+		// when
+		String merged = cache.merge(1L, "second", (cached, value) -> cached + value);
+		// then
+		assertEquals("firstsecond", merged);
+		assertEquals("firstsecond", cache.get(1L));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testShouldKeepCollidingKeysApart() {
+		// given
+		LongKeyLruCache<Long> cache = new LongKeyLruCache<Long>(1000);
+		// when
+		for (long key = 0; key < 1000; key++) {
+			cache.put(key << 20, key);
+		}
+		// then
+		assertEquals(1000, cache.size());
+		for (long key = 0; key < 1000; key++) {
+			assertEquals(Long.valueOf(key), cache.get(key << 20));
+		}
+		assertEquals(0, cache.getEvictions());
+	}
+}
@@ -0,0 +1,118 @@
+package pl.spring.demo.service.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.BookTo;
+
+public class BookSearchIndexTest {
+
+	private BookSearchIndex searchIndex;
+
+	@Before
+	public void setUp() {
+		searchIndex = new BookSearchIndex();
+		searchIndex.rebuild(Arrays.asList(new BookTo(1L, "First book", "Jan Kowalski", BookStatus.FREE),
+				new BookTo(2L, "Second book", "Zbigniew Nowak", BookStatus.LOAN),
+				new BookTo(3L, "Third book", "Janusz Jankowski", BookStatus.FREE)));
+	}
+
+	@Test
+	public void testShouldIgnoreBookOlderThanIndexedOne() {
+		// given
+		searchIndex.put(new BookTo(4L, "Returned book", "Anna Nowak", BookStatus.FREE, 2L));
+		BookTo lentBook = new BookTo(4L, "Lent book", "Anna Nowak", BookStatus.LOAN, 1L);
+		// when
+		BookTo indexedBook = searchIndex.put(lentBook);
+		// then
+		assertSame(lentBook, indexedBook);
+		assertEquals(BookStatus.FREE, searchIndex.findByTitle("Returned").get(0).getStatus());
+		assertTrue(searchIndex.findByTitle("Lent").isEmpty());
+	}
+
+	@Test
+	public void testShouldFindBooksByTitlePrefix() {
+		// when
+		List<BookTo> foundBooks = searchIndex.findByTitle("sec");
+		// then
+		assertEquals(1, foundBooks.size());
+		assertEquals(Long.valueOf(2L), foundBooks.get(0).getId());
+		assertTrue(searchIndex.findByTitle("book").isEmpty());
+	}
+
+	@Test
+	public void testShouldFindBooksByAuthorSubstring() {
+		// when
+		List<BookTo> foundBooks = searchIndex.findByAuthor("SKI");
+		// then
+		assertEquals(2, foundBooks.size());
+		assertEquals(Long.valueOf(1L), foundBooks.get(0).getId());
+		assertEquals(Long.valueOf(3L), foundBooks.get(1).getId());
+	}
+
+	@Test
+	public void testShouldFindBooksByShortFragment() {
+		// when
+		List<BookTo> foundBooks = searchIndex.findByAuthor("ak");
+		// then
+		assertEquals(1, foundBooks.size());
+		assertEquals("Zbigniew Nowak", foundBooks.get(0).getAuthors());
+	}
+
+	@Test
+	public void testShouldFindBooksByAllFields() {
+		// then
+		assertEquals(2, searchIndex.findByAllFields("book", "jan", BookStatus.FREE).size());
+		assertEquals(1, searchIndex.findByAllFields("", "", BookStatus.LOAN).size());
+		assertEquals(3, searchIndex.findByAllFields("", null, null).size());
+		assertTrue(searchIndex.findByAllFields(null, null, null).isEmpty());
+		assertTrue(searchIndex.findByAllFields("second", "jan", null).isEmpty());
+	}
+
+	@Test
+	public void testShouldReindexChangedBook() {
+		// when
+		searchIndex.put(new BookTo(2L, "Fourth book", "Anna Nowak", BookStatus.FREE));
+		// then
+		assertTrue(searchIndex.findByTitle("second").isEmpty());
+		assertTrue(searchIndex.findByAuthor("zbigniew").isEmpty());
+		assertEquals(1, searchIndex.findByTitle("fourth").size());
+	}
+
+	@Test
+	public void testShouldNotFindRemovedBook() {
+		// when
+		searchIndex.remove(1L);
+		// then
+		assertTrue(searchIndex.findByTitle("first").isEmpty());
+		assertEquals(1, searchIndex.findByAuthor("jan").size());
+	}
+
+	@Test
+	public void testShouldIgnoreSaveAppliedAfterRemove() {
+		// given
+		BookTo savedBook = new BookTo(1L, "First book changed", "Jan Kowalski", BookStatus.FREE, 1L);
+		searchIndex.remove(1L);
+		// when
+		BookTo indexedBook = searchIndex.put(savedBook);
+		// then
+		assertSame(savedBook, indexedBook);
+		assertTrue(searchIndex.findByTitle("first").isEmpty());
+	}
+
+	@Test
+	public void testShouldNotExposeIndexedBooks() {
+		// when
+		searchIndex.findByTitle("first").get(0).setStatus(BookStatus.MISSING);
+		// then
+		assertEquals(BookStatus.FREE, searchIndex.findByTitle("first").get(0).getStatus());
+	}
+}
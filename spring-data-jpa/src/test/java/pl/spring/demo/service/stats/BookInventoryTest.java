@@ -0,0 +1,47 @@
+package pl.spring.demo.service.stats;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.spring.demo.enumerations.BookStatus;
+
+public class BookInventoryTest {
+
+	private BookInventory inventory;
+
+	@Before
+	public void setUp() {
+		inventory = new BookInventory();
+		inventory.reset(Collections.singletonMap(BookStatus.FREE, 3L));
+	}
+
+	@Test
+	public void testShouldReportAllStatuses() {
+		// when
+		Map<BookStatus, Long> booksByStatus = inventory.getBooksByStatus();
+		// then
+		assertEquals(3, booksByStatus.size());
+		assertEquals(Long.valueOf(3L), booksByStatus.get(BookStatus.FREE));
+		assertEquals(Long.valueOf(0L), booksByStatus.get(BookStatus.LOAN));
+		assertEquals(Long.valueOf(0L), booksByStatus.get(BookStatus.MISSING));
+	}
+
+	@Test
+	public void testShouldMoveBooksBetweenStatuses() {
+		// when
+		inventory.move(null, BookStatus.LOAN);
+		inventory.move(BookStatus.FREE, BookStatus.MISSING);
+		inventory.move(BookStatus.FREE, null);
+		inventory.move(BookStatus.LOAN, BookStatus.LOAN);
+		// then
+		Map<BookStatus, Long> booksByStatus = inventory.getBooksByStatus();
+		assertEquals(Long.valueOf(1L), booksByStatus.get(BookStatus.FREE));
+		assertEquals(Long.valueOf(1L), booksByStatus.get(BookStatus.LOAN));
+		assertEquals(Long.valueOf(1L), booksByStatus.get(BookStatus.MISSING));
+	}
+}
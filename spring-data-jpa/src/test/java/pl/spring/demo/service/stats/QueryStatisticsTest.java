@@ -0,0 +1,66 @@
+package pl.spring.demo.service.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import pl.spring.demo.jpa.QueryScope;
+import pl.spring.demo.repository.BookRepository;
+import pl.spring.demo.to.QueryStatisticsTo;
+import pl.spring.demo.to.RequestQueryStatisticsTo;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = "../CommonServiceTest-context.xml")
+public class QueryStatisticsTest {
+
+	private static final String COUNT_BY_STATUS = "select book.status, count(book) from BookEntity book group by book.status";
+
+	@Autowired
+	private QueryStatistics queryStatistics;
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Before
+	public void setUp() {
+		queryStatistics.reset();
+	}
+
+	@Test
+	public void testShouldRecordExecutionsOfRepositoryQuery() {
+		// when
+		bookRepository.countBooksByStatus();
+		bookRepository.countBooksByStatus();
+		// then
+		QueryStatisticsTo query = queryStatistics.getQueries().stream()
+				.filter(statistics -> COUNT_BY_STATUS.equals(statistics.getQuery())).findFirst()
+				.orElseThrow(() -> new AssertionError("Query not recorded"));
+		assertEquals(2, query.getExecutions());
+		assertTrue(query.getRows() > 0);
+		assertTrue(query.getTotalMillis() > 0);
+		assertTrue(query.getMaxMillis() <= query.getTotalMillis());
+	}
+
+	@Test
+	public void testShouldFlagRequestRepeatingQueries() {
+		// given
+		int limit = queryStatistics.getStatementsPerRequestLimit();
+		// when
+		QueryScope scope = queryStatistics.openScope("BookRestService.getBooks");
+		for (int i = 0; i <= limit; i++) {
+			bookRepository.countBooksByStatus();
+		}
+		queryStatistics.closeScope(scope);
+		// then
+		assertEquals(limit + 1, scope.getStatements());
+		RequestQueryStatisticsTo request = queryStatistics.getRequests().get(0);
+		assertEquals("BookRestService.getBooks", request.getRequest());
+		assertEquals(1, request.getCount());
+		assertEquals(1, request.getFlagged());
+	}
+}
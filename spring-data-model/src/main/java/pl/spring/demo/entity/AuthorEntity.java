@@ -0,0 +1,79 @@
+package pl.spring.demo.entity;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "AUTHOR")
+public class AuthorEntity implements Serializable {
+
+	@Id
+	// generator is defined in config/orm.xml, next to persistence settings
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authorIdGenerator")
+	private Long id;
+	@Column(nullable = false, length = 200)
+	private String name;
+	// upper case name, unique and indexed for author lookups
+	@Column(nullable = false, length = 200, unique = true)
+	private String searchName;
+
+	// for hibernate
+	protected AuthorEntity() {
+	}
+
+	public AuthorEntity(Long id, String name) {
+		this.id = id;
+		this.name = name;
+		updateSearchColumns();
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getSearchName() {
+		return searchName;
+	}
+
+	@PrePersist
+	@PreUpdate
+	private void updateSearchColumns() {
+		searchName = name == null ? null : name.toUpperCase(Locale.ROOT);
+	}
+
+	@Override
+	public int hashCode() {
+		return id == null ? 0 : id.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		AuthorEntity other = (AuthorEntity) obj;
+		return id != null && id.equals(other.id);
+	}
+}
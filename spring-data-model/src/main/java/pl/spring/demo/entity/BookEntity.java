@@ -1,7 +1,11 @@
 package pl.spring.demo.entity;
 
 import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -9,22 +13,41 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import pl.spring.demo.enumerations.BookStatus;
 
 @Entity
+// kept in second level cache, see config/jpa.properties
+@Cacheable
 @Table(name = "BOOK")
 public class BookEntity implements Serializable {
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	// generator is defined in config/orm.xml, next to persistence settings
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookIdGenerator")
 	private Long id;
 	@Column(nullable = false, length = 50)
 	private String title;
+	// upper case title, indexed for prefix searches
+	@Column(nullable = false, length = 50)
+	private String searchTitle;
 	@Column(nullable = false, length = 200)
 	private String authors;
 	@Enumerated(EnumType.STRING)
 	private BookStatus status;
+	// normalized form of authors text, used for author lookups
+	@ManyToMany
+	@JoinTable(name = "BOOK_AUTHOR", joinColumns = @JoinColumn(name = "BOOK_ID"), inverseJoinColumns = @JoinColumn(name = "AUTHOR_ID"))
+	private Set<AuthorEntity> authorEntities = new HashSet<AuthorEntity>();
+	// checked and incremented on every update, concurrent edits fail instead of overwriting each other
+	@Version
+	private Long version;
 
 	// for hibernate
 	protected BookEntity() {
@@ -69,6 +92,32 @@ public class BookEntity implements Serializable {
 		this.status = status;
 	}
 
+	public Set<AuthorEntity> getAuthorEntities() {
+		return authorEntities;
+	}
+
+	public void setAuthorEntities(Set<AuthorEntity> authorEntities) {
+		this.authorEntities = authorEntities;
+	}
+
+	public String getSearchTitle() {
+		return searchTitle;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	@PrePersist
+	@PreUpdate
+	private void updateSearchColumns() {
+		searchTitle = title == null ? null : title.toUpperCase(Locale.ROOT);
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -1,23 +1,33 @@
 package pl.spring.demo.entity;
 
 import java.io.Serializable;
+import java.util.Locale;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 
 @Entity
+// kept in second level cache, see config/jpa.properties
+@Cacheable
 @Table(name = "USERENTITY")
 public class UserEntity implements Serializable {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	// generator is defined in config/orm.xml, next to persistence settings
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "userIdGenerator")
 	private Long id;
 	@Column(nullable = false, length = 50)
 	private String userName;
+	// upper case user name, indexed for prefix searches
+	@Column(nullable = false, length = 50)
+	private String searchUserName;
 	@Column(nullable = false, length = 200)
 	private String password;
 
@@ -54,4 +64,14 @@ public class UserEntity implements Serializable {
 	public void setPassword(String password) {
 		this.password = password;
 	}
+
+	public String getSearchUserName() {
+		return searchUserName;
+	}
+
+	@PrePersist
+	@PreUpdate
+	private void updateSearchColumns() {
+		searchUserName = userName == null ? null : userName.toUpperCase(Locale.ROOT);
+	}
 }
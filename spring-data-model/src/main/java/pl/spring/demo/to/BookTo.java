@@ -7,6 +7,8 @@ public class BookTo {
     private String title;
     private String authors;
     private BookStatus status;
+    // version of book read by client, null skips concurrent change check
+    private Long version;
     
     public BookTo() {
     }
@@ -18,6 +20,11 @@ public class BookTo {
         this.setStatus(status);
     }
 
+    public BookTo(Long id, String title, String authors, BookStatus status, Long version) {
+        this(id, title, authors, status);
+        this.version = version;
+    }
+
     public BookTo(String title, String authors, BookStatus status) {
         this.title = title;
         this.authors = authors;
@@ -55,4 +62,12 @@ public class BookTo {
 	public void setStatus(BookStatus status) {
 		this.status = status;
 	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
 }
@@ -0,0 +1,80 @@
+package pl.spring.demo.to;
+
+/**
+ * Executions of one query string, times in milliseconds
+ */
+public class QueryStatisticsTo {
+
+	private String query;
+	private long executions;
+	private long rows;
+	private long slowExecutions;
+	private double totalMillis;
+	private double meanMillis;
+	private double maxMillis;
+
+	/**
+	 * @return JPQL, criteria or native SQL query as executed by Hibernate
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	public void setQuery(String query) {
+		this.query = query;
+	}
+
+	public long getExecutions() {
+		return executions;
+	}
+
+	public void setExecutions(long executions) {
+		this.executions = executions;
+	}
+
+	/**
+	 * @return number of rows returned by all executions
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	public void setRows(long rows) {
+		this.rows = rows;
+	}
+
+	/**
+	 * @return number of executions which took at least slow query threshold
+	 */
+	public long getSlowExecutions() {
+		return slowExecutions;
+	}
+
+	public void setSlowExecutions(long slowExecutions) {
+		this.slowExecutions = slowExecutions;
+	}
+
+	public double getTotalMillis() {
+		return totalMillis;
+	}
+
+	public void setTotalMillis(double totalMillis) {
+		this.totalMillis = totalMillis;
+	}
+
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+
+	public void setMeanMillis(double meanMillis) {
+		this.meanMillis = meanMillis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	public void setMaxMillis(double maxMillis) {
+		this.maxMillis = maxMillis;
+	}
+}
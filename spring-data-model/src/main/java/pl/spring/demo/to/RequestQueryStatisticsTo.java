@@ -0,0 +1,60 @@
+package pl.spring.demo.to;
+
+/**
+ * Statements prepared by requests of one handler
+ */
+public class RequestQueryStatisticsTo {
+
+	private String request;
+	private long count;
+	private long flagged;
+	private double meanStatements;
+	private long maxStatements;
+
+	/**
+	 * @return name of request scope, e.g. BookRestService.getBookById
+	 */
+	public String getRequest() {
+		return request;
+	}
+
+	public void setRequest(String request) {
+		this.request = request;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	/**
+	 * @return number of requests which prepared more statements than limit,
+	 *         usually because of N+1 selects
+	 */
+	public long getFlagged() {
+		return flagged;
+	}
+
+	public void setFlagged(long flagged) {
+		this.flagged = flagged;
+	}
+
+	public double getMeanStatements() {
+		return meanStatements;
+	}
+
+	public void setMeanStatements(double meanStatements) {
+		this.meanStatements = meanStatements;
+	}
+
+	public long getMaxStatements() {
+		return maxStatements;
+	}
+
+	public void setMaxStatements(long maxStatements) {
+		this.maxStatements = maxStatements;
+	}
+}
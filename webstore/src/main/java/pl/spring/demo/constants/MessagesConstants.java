@@ -17,4 +17,5 @@ public final class MessagesConstants implements Serializable {
 	public static final String BOOK_ADDED_TITLE = "Book Added";
 	public static final String BOOK_DELETED_HEADER = "Book Deleted Correctly";
 	public static final String BOOK_DELETED_TITLE = "Book Deleted";
+	public static final String BOOK_CHANGED = "Book was changed by someone else, reload it and try again";
 }
@@ -20,4 +20,6 @@ public final class ModelConstants implements Serializable {
 	public static final String BOOK_DELETED = "book.deleted";
 	public static final String ADD_DELETE_HEADER = "addDeleteHeader";
 	public static final String ADD_DELETE_TITLE = "addDeleteTitle";
+	public static final String PAGE_LIMIT = "pageLimit";
+	public static final String NEXT_PAGE_AFTER = "nextPageAfter";
 }
@@ -18,6 +18,7 @@ public final class ViewNames implements Serializable {
 	public static final String LOGIN = "login";
 	public static final String WELCOME = "welcome";
 	public static final String _403 = "403";
+	public static final String CONFLICT = "conflict";
 	public static final String ADDED_OR_DELETED = "addedOrDeleted";
 	public static final String SEARCH = "search";
 }
@@ -2,6 +2,7 @@ package pl.spring.demo.controller;
 
 import static pl.spring.demo.constants.MessagesConstants.BOOK_ADDED_HEADER;
 import static pl.spring.demo.constants.MessagesConstants.BOOK_ADDED_TITLE;
+import static pl.spring.demo.constants.MessagesConstants.BOOK_CHANGED;
 import static pl.spring.demo.constants.MessagesConstants.BOOK_DELETED_HEADER;
 import static pl.spring.demo.constants.MessagesConstants.BOOK_DELETED_TITLE;
 import static pl.spring.demo.constants.MessagesConstants.NOT_ALL_FIELDS_FILL;
@@ -10,14 +11,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.servlet.ModelAndView;
 
 import pl.spring.demo.constants.ModelConstants;
@@ -36,12 +41,14 @@ import pl.spring.demo.to.BookTo;
 @RequestMapping("/books")
 public class BookController {
 
+	private static final int DEFAULT_PAGE_SIZE = 20;
+
 	@Autowired
 	private BookService bookService;
 
 	@RequestMapping
 	public String list(Model model) {
-		return "redirect:/books/all";
+		return "redirect:/books/all?limit=" + DEFAULT_PAGE_SIZE;
 	}
 
 	/**
@@ -57,6 +64,29 @@ public class BookController {
 		return modelAndView;
 	}
 
+	/**
+	 * Method return one page of books from database, ordered by id
+	 * @param after
+	 *            - id of last book from previous page, skipped for first page
+	 * @param limit
+	 *            - maximal number of books on page
+	 * @return - model and view object with books from page, id to start next
+	 *         page after (only when next page can exist) and view "BOOKS" name
+	 */
+	@RequestMapping(value = "/all", params = "limit", method = RequestMethod.GET)
+	public ModelAndView booksPage(@RequestParam(value = "after", required = false) Long after,
+			@RequestParam("limit") int limit) {
+		ModelAndView modelAndView = new ModelAndView();
+		List<BookTo> books = bookService.findBooks(after, limit);
+		modelAndView.addObject(ModelConstants.BOOK_LIST, books);
+		modelAndView.addObject(ModelConstants.PAGE_LIMIT, limit);
+		if (!books.isEmpty() && books.size() == Math.min(limit, BookService.MAX_PAGE_SIZE)) {
+			modelAndView.addObject(ModelConstants.NEXT_PAGE_AFTER, books.get(books.size() - 1).getId());
+		}
+		modelAndView.setViewName(ViewNames.BOOKS);
+		return modelAndView;
+	}
+
 	/**
 	 * Method find book by id and return it's details
 	 * @param id
@@ -163,6 +193,23 @@ public class BookController {
 		return mav;
 	}
 
+	/**
+	 * Method answers saves of books committed by someone else while they
+	 * were saved
+	 * @param e
+	 *            - exception thrown when saved version is not current
+	 * @return model and view object with error message and view "CONFLICT"
+	 *         name, sent with status 409
+	 */
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	public ModelAndView handleConcurrentChange(OptimisticLockingFailureException e) {
+		ModelAndView mav = new ModelAndView();
+		mav.addObject(ModelConstants.ERROR_MESSAGE, BOOK_CHANGED);
+		mav.setViewName(ViewNames.CONFLICT);
+		return mav;
+	}
+
 	/**
 	 * Binder initialization
 	 */
@@ -0,0 +1,405 @@
+package pl.spring.demo.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * Compresses text responses with gzip or deflate, whichever client accepts.
+ * First bytes of response are buffered, responses shorter than minimal size
+ * are sent as they are. Longer responses are compressed while they are
+ * written, flushing response flushes compressed data too, so streamed
+ * responses are not held back.
+ *
+ * Asynchronous requests are compressed when their async dispatch completes.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+	private static final String GZIP = "gzip";
+	private static final String DEFLATE = "deflate";
+	private static final int BUFFER_SIZE = 8192;
+
+	private int minSize = 1024;
+	private int level = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * @param minSize
+	 *            - responses shorter than this number of bytes are not
+	 *            compressed, default is 1024
+	 */
+	public void setMinSize(int minSize) {
+		this.minSize = minSize;
+	}
+
+	/**
+	 * @param level
+	 *            - deflater compression level, from 1 (fastest) to 9 (smallest)
+	 */
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		// async dispatch writes to response wrapped by first dispatch, it is finished here
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		CompressingResponse compressingResponse = WebUtils.getNativeResponse(response, CompressingResponse.class);
+		if (compressingResponse == null) {
+			String encoding = selectEncoding(request);
+			if (encoding == null) {
+				filterChain.doFilter(request, response);
+				return;
+			}
+			compressingResponse = new CompressingResponse(response, encoding);
+			response = compressingResponse;
+		}
+		filterChain.doFilter(request, response);
+		if (!isAsyncStarted(request)) {
+			compressingResponse.finish();
+		}
+	}
+
+	/**
+	 * @return accepted encoding, gzip preferred, or null when response should
+	 *         not be compressed
+	 */
+	private static String selectEncoding(HttpServletRequest request) {
+		if ("HEAD".equals(request.getMethod())) {
+			return null;
+		}
+		String acceptEncoding = request.getHeader("Accept-Encoding");
+		if (acceptEncoding == null) {
+			return null;
+		}
+		// null when coding is not listed, "*" stands for codings which are not listed
+		Boolean gzipAccepted = null;
+		Boolean deflateAccepted = null;
+		boolean anyAccepted = false;
+		for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+			String[] parts = coding.split(";");
+			String name = parts[0].trim();
+			if (GZIP.equals(name)) {
+				gzipAccepted = isAccepted(parts);
+			} else if (DEFLATE.equals(name)) {
+				deflateAccepted = isAccepted(parts);
+			} else if ("*".equals(name)) {
+				anyAccepted = isAccepted(parts);
+			}
+		}
+		if (gzipAccepted == null ? anyAccepted : gzipAccepted) {
+			return GZIP;
+		}
+		if (deflateAccepted == null ? anyAccepted : deflateAccepted) {
+			return DEFLATE;
+		}
+		return null;
+	}
+
+	private static boolean isAccepted(String[] codingParts) {
+		for (int i = 1; i < codingParts.length; i++) {
+			String parameter = codingParts[i].trim();
+			if (parameter.startsWith("q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2)) > 0;
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static boolean isCompressible(String contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		String type = contentType.toLowerCase(Locale.ROOT);
+		return type.startsWith("text/") || type.contains("json") || type.contains("xml")
+				|| type.contains("javascript");
+	}
+
+	/**
+	 * Response which decides about compression when first bytes exceed
+	 * minimal size, or when response is finished.
+	 */
+	private class CompressingResponse extends HttpServletResponseWrapper {
+
+		private final String encoding;
+		private CompressingOutputStream outputStream;
+		private PrintWriter writer;
+		private long contentLength = -1;
+
+		CompressingResponse(HttpServletResponse response, String encoding) {
+			super(response);
+			this.encoding = encoding;
+			response.addHeader("Vary", "Accept-Encoding");
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (writer != null) {
+				throw new IllegalStateException("getWriter() has already been called for this response");
+			}
+			return getCompressingOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				if (outputStream != null) {
+					throw new IllegalStateException("getOutputStream() has already been called for this response");
+				}
+				writer = new PrintWriter(new OutputStreamWriter(getCompressingOutputStream(), getCharacterEncoding()));
+			}
+			return writer;
+		}
+
+		@Override
+		public void setContentLength(int length) {
+			setContentLengthLong(length);
+		}
+
+		@Override
+		public void setContentLengthLong(long length) {
+			// length of uncompressed content, sent only when content is not compressed
+			contentLength = length;
+			if (outputStream != null && outputStream.isDecided() && !outputStream.isCompressed()) {
+				sendContentLength();
+			}
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			if (isContentLength(name)) {
+				setContentLengthLong(Long.parseLong(value));
+			} else {
+				super.setHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			if (isContentLength(name)) {
+				setContentLengthLong(Long.parseLong(value));
+			} else {
+				super.addHeader(name, value);
+			}
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			flush();
+			if (outputStream == null || outputStream.isDecided()) {
+				super.flushBuffer();
+			}
+		}
+
+		@Override
+		public void resetBuffer() {
+			if (outputStream != null) {
+				outputStream.resetBuffer();
+			}
+			super.resetBuffer();
+		}
+
+		@Override
+		public void reset() {
+			resetBuffer();
+			super.reset();
+			addHeader("Vary", "Accept-Encoding");
+			contentLength = -1;
+		}
+
+		void finish() throws IOException {
+			flush();
+			if (outputStream != null) {
+				outputStream.close();
+			} else {
+				sendContentLength();
+			}
+		}
+
+		private void sendContentLength() {
+			if (contentLength >= 0) {
+				getResponse().setContentLengthLong(contentLength);
+			}
+		}
+
+		private void flush() throws IOException {
+			if (writer != null) {
+				writer.flush();
+			} else if (outputStream != null) {
+				outputStream.flush();
+			}
+		}
+
+		private CompressingOutputStream getCompressingOutputStream() throws IOException {
+			if (outputStream == null) {
+				outputStream = new CompressingOutputStream(this, getResponse().getOutputStream());
+			}
+			return outputStream;
+		}
+
+		private boolean isContentLength(String name) {
+			return "Content-Length".equalsIgnoreCase(name);
+		}
+
+		/**
+		 * @return true when response content may be compressed
+		 */
+		private boolean startCompression() {
+			HttpServletResponse response = (HttpServletResponse) getResponse();
+			if (response.containsHeader("Content-Encoding") || !isCompressible(getContentType())) {
+				return false;
+			}
+			response.setHeader("Content-Encoding", encoding);
+			return true;
+		}
+
+		private OutputStream compressingStream(OutputStream target) throws IOException {
+			if (GZIP.equals(encoding)) {
+				return new GZIPOutputStream(target, BUFFER_SIZE, true) {
+					{
+						def.setLevel(level);
+					}
+				};
+			}
+			return new DeflaterOutputStream(target, new Deflater(level), BUFFER_SIZE, true) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						def.end();
+					}
+				}
+			};
+		}
+	}
+
+	/**
+	 * Buffers first bytes until minimal size is reached, then writes through
+	 * compressing or plain stream
+	 */
+	private class CompressingOutputStream extends ServletOutputStream {
+
+		private final CompressingResponse response;
+		private final ServletOutputStream target;
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		private OutputStream out;
+		private boolean compressed;
+		private boolean closed;
+
+		CompressingOutputStream(CompressingResponse response, ServletOutputStream target) {
+			this.response = response;
+			this.target = target;
+		}
+
+		boolean isDecided() {
+			return out != null;
+		}
+
+		boolean isCompressed() {
+			return compressed;
+		}
+
+		void resetBuffer() {
+			if (out != null) {
+				throw new IllegalStateException("Response content has already been written");
+			}
+			buffer.reset();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (out == null) {
+				buffer.write(b);
+				decideWhenFull();
+			} else {
+				out.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (out == null) {
+				buffer.write(bytes, offset, length);
+				decideWhenFull();
+			} else {
+				out.write(bytes, offset, length);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// undecided content is shorter than minimal size, it waits for more
+			if (out != null) {
+				out.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (out == null) {
+				decide(buffer.size() >= minSize);
+			}
+			if (compressed) {
+				out.close();
+			} else {
+				out.flush();
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			return target.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			target.setWriteListener(writeListener);
+		}
+
+		private void decideWhenFull() throws IOException {
+			if (buffer.size() >= minSize) {
+				decide(true);
+			}
+		}
+
+		private void decide(boolean largeEnough) throws IOException {
+			compressed = largeEnough && response.startCompression();
+			out = compressed ? response.compressingStream(target) : target;
+			if (!compressed) {
+				response.sendContentLength();
+			}
+			buffer.writeTo(out);
+			buffer = null;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package pl.spring.demo.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Records latency and outcome of every request handled by controller
+ * method in {@link HandlerMetricsRegistry}. Asynchronous requests are
+ * measured from their first dispatch to completion of async dispatch.
+ *
+ * Start time is kept per thread, so synchronous requests are measured
+ * without allocation. Asynchronous requests carry it to their async dispatch
+ * in request attribute.
+ */
+@Component
+public class HandlerLatencyInterceptor extends HandlerInterceptorAdapter {
+
+	private static final String START_ATTRIBUTE = HandlerLatencyInterceptor.class.getName() + ".start";
+
+	private final ThreadLocal<long[]> startTimes = ThreadLocal.withInitial(() -> new long[1]);
+
+	@Autowired
+	private HandlerMetricsRegistry metricsRegistry;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			Object asyncStart = request.getAttribute(START_ATTRIBUTE);
+			startTimes.get()[0] = asyncStart != null ? (Long) asyncStart : System.nanoTime();
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		if (handler instanceof HandlerMethod) {
+			request.setAttribute(START_ATTRIBUTE, startTimes.get()[0]);
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		if (handler instanceof HandlerMethod) {
+			metricsRegistry.record((HandlerMethod) handler, System.nanoTime() - startTimes.get()[0],
+					response.getStatus(), ex != null);
+		}
+	}
+}
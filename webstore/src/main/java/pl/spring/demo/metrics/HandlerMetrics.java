@@ -0,0 +1,73 @@
+package pl.spring.demo.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram and error counters of one handler method. Histogram has
+ * fixed size, recording is wait free and does not allocate.
+ */
+class HandlerMetrics {
+
+	/** longer latencies are recorded as this value */
+	static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+	private static final int SIGNIFICANT_DIGITS = 2;
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final String handler;
+	private final ConcurrentHistogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder clientErrors = new LongAdder();
+
+	/**
+	 * @param handler
+	 *            - handler name shown in snapshots
+	 */
+	HandlerMetrics(String handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @param latencyNanos
+	 *            - time from start of request to its completion
+	 * @param status
+	 *            - http status of response
+	 * @param failed
+	 *            - true when handler threw exception which was not handled
+	 */
+	void record(long latencyNanos, int status, boolean failed) {
+		latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+		if (failed || status >= 500) {
+			errors.increment();
+		} else if (status >= 400) {
+			clientErrors.increment();
+		}
+	}
+
+	/**
+	 * @return current statistics, counters may be a few requests apart when
+	 *         requests complete while snapshot is taken
+	 */
+	HandlerMetricsTo snapshot() {
+		Histogram histogram = latencies.copy();
+		HandlerMetricsTo metrics = new HandlerMetricsTo();
+		metrics.setHandler(handler);
+		metrics.setCount(histogram.getTotalCount());
+		metrics.setErrors(errors.sum());
+		metrics.setClientErrors(clientErrors.sum());
+		metrics.setMeanMillis(histogram.getMean() / MICROS_PER_MILLI);
+		metrics.setP50Millis(millisAt(histogram, 50));
+		metrics.setP90Millis(millisAt(histogram, 90));
+		metrics.setP99Millis(millisAt(histogram, 99));
+		metrics.setP999Millis(millisAt(histogram, 99.9));
+		metrics.setMaxMillis(histogram.getMaxValue() / MICROS_PER_MILLI);
+		return metrics;
+	}
+
+	private static double millisAt(Histogram histogram, double percentile) {
+		return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+	}
+}
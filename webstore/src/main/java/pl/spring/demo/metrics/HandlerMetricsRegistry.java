@@ -0,0 +1,61 @@
+package pl.spring.demo.metrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * Metrics of all handler methods which handled requests since start or last
+ * reset
+ */
+@Component
+public class HandlerMetricsRegistry {
+
+	private final ConcurrentMap<Method, HandlerMetrics> metrics = new ConcurrentHashMap<Method, HandlerMetrics>();
+
+	/**
+	 * @param handler
+	 *            - handler method of completed request
+	 * @param latencyNanos
+	 *            - time from start of request to its completion
+	 * @param status
+	 *            - http status of response
+	 * @param failed
+	 *            - true when handler threw exception which was not handled
+	 */
+	public void record(HandlerMethod handler, long latencyNanos, int status, boolean failed) {
+		// plain lookup first, computeIfAbsent locks even when metrics exist
+		HandlerMetrics handlerMetrics = metrics.get(handler.getMethod());
+		if (handlerMetrics == null) {
+			handlerMetrics = metrics.computeIfAbsent(handler.getMethod(), HandlerMetricsRegistry::createMetrics);
+		}
+		handlerMetrics.record(latencyNanos, status, failed);
+	}
+
+	/**
+	 * @return metrics of every handler method, ordered by handler name
+	 */
+	public List<HandlerMetricsTo> getMetrics() {
+		List<HandlerMetricsTo> snapshots = new ArrayList<HandlerMetricsTo>(metrics.size());
+		metrics.values().forEach(handlerMetrics -> snapshots.add(handlerMetrics.snapshot()));
+		snapshots.sort(Comparator.comparing(HandlerMetricsTo::getHandler));
+		return snapshots;
+	}
+
+	/**
+	 * Forgets statistics of all handler methods
+	 */
+	public void reset() {
+		metrics.clear();
+	}
+
+	private static HandlerMetrics createMetrics(Method method) {
+		return new HandlerMetrics(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+	}
+}
@@ -0,0 +1,118 @@
+package pl.spring.demo.metrics;
+
+/**
+ * Latency percentiles and error counts of one handler method, latencies in
+ * milliseconds
+ */
+public class HandlerMetricsTo {
+
+	private String handler;
+	private long count;
+	private long errors;
+	private long clientErrors;
+	private double meanMillis;
+	private double p50Millis;
+	private double p90Millis;
+	private double p99Millis;
+	private double p999Millis;
+	private double maxMillis;
+
+	/**
+	 * @return controller and method name, e.g. BookRestService.getBookById
+	 */
+	public String getHandler() {
+		return handler;
+	}
+
+	public void setHandler(String handler) {
+		this.handler = handler;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public void setCount(long count) {
+		this.count = count;
+	}
+
+	/**
+	 * @return number of requests answered with server error status or
+	 *         failed with unhandled exception
+	 */
+	public long getErrors() {
+		return errors;
+	}
+
+	public void setErrors(long errors) {
+		this.errors = errors;
+	}
+
+	/**
+	 * @return number of requests answered with client error status, e.g.
+	 *         "NOT_FOUND" or "CONFLICT"
+	 */
+	public long getClientErrors() {
+		return clientErrors;
+	}
+
+	public void setClientErrors(long clientErrors) {
+		this.clientErrors = clientErrors;
+	}
+
+	/**
+	 * @return share of server errors in all requests, 0 when there were no
+	 *         requests
+	 */
+	public double getErrorRate() {
+		return count == 0 ? 0 : (double) errors / count;
+	}
+
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+
+	public void setMeanMillis(double meanMillis) {
+		this.meanMillis = meanMillis;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public void setP50Millis(double p50Millis) {
+		this.p50Millis = p50Millis;
+	}
+
+	public double getP90Millis() {
+		return p90Millis;
+	}
+
+	public void setP90Millis(double p90Millis) {
+		this.p90Millis = p90Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	public void setP99Millis(double p99Millis) {
+		this.p99Millis = p99Millis;
+	}
+
+	public double getP999Millis() {
+		return p999Millis;
+	}
+
+	public void setP999Millis(double p999Millis) {
+		this.p999Millis = p999Millis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+	public void setMaxMillis(double maxMillis) {
+		this.maxMillis = maxMillis;
+	}
+}
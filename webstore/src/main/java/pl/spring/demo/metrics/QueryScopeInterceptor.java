@@ -0,0 +1,76 @@
+package pl.spring.demo.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import pl.spring.demo.jpa.QueryScope;
+import pl.spring.demo.service.stats.QueryStatistics;
+
+/**
+ * Counts statements prepared while controller method handles request, so
+ * requests causing N+1 selects are flagged in {@link QueryStatistics}.
+ *
+ * Asynchronous requests carry their scope to async dispatch in request
+ * attribute. Calls they hand over to {@link QueryScopeTaskExecutor} are
+ * counted in the same scope.
+ */
+@Component
+public class QueryScopeInterceptor extends HandlerInterceptorAdapter {
+
+	private static final String SCOPE_ATTRIBUTE = QueryScopeInterceptor.class.getName() + ".scope";
+
+	private final ConcurrentMap<Method, String> scopeNames = new ConcurrentHashMap<Method, String>();
+
+	@Autowired
+	private QueryStatistics queryStatistics;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			QueryScope asyncScope = (QueryScope) request.getAttribute(SCOPE_ATTRIBUTE);
+			if (asyncScope != null) {
+				asyncScope.attach();
+			} else {
+				queryStatistics.openScope(scopeName(((HandlerMethod) handler).getMethod()));
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		QueryScope scope = QueryScope.current();
+		if (scope != null) {
+			request.setAttribute(SCOPE_ATTRIBUTE, scope);
+			QueryScope.detach();
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		QueryScope scope = QueryScope.current();
+		if (scope != null) {
+			queryStatistics.closeScope(scope);
+		}
+	}
+
+	private String scopeName(Method method) {
+		String name = scopeNames.get(method);
+		if (name == null) {
+			name = scopeNames.computeIfAbsent(method,
+					key -> key.getDeclaringClass().getSimpleName() + "." + key.getName());
+		}
+		return name;
+	}
+}
@@ -0,0 +1,46 @@
+package pl.spring.demo.metrics;
+
+import org.springframework.core.task.TaskExecutor;
+
+import pl.spring.demo.jpa.QueryScope;
+
+/**
+ * Executor which runs tasks in {@link QueryScope} of the thread which
+ * submitted them, so statements of asynchronous rest calls are counted in
+ * scope of their request
+ */
+public class QueryScopeTaskExecutor implements TaskExecutor {
+
+	private final TaskExecutor delegate;
+
+	/**
+	 * @param delegate
+	 *            - executor running the tasks
+	 */
+	public QueryScopeTaskExecutor(TaskExecutor delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		QueryScope scope = QueryScope.current();
+		if (scope == null) {
+			delegate.execute(task);
+			return;
+		}
+		delegate.execute(() -> {
+			// delegate may run task in submitting thread, its scope is restored then
+			QueryScope previous = QueryScope.current();
+			scope.attach();
+			try {
+				task.run();
+			} finally {
+				if (previous != null) {
+					previous.attach();
+				} else {
+					QueryScope.detach();
+				}
+			}
+		});
+	}
+}
@@ -1,23 +1,54 @@
 package pl.spring.demo.rest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jdt.annotation.NonNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import pl.spring.demo.enumerations.BookStatus;
 import pl.spring.demo.service.BookService;
+import pl.spring.demo.to.AuthorTo;
 import pl.spring.demo.to.BookTo;
 
 /**
- * Book rest service
+ * Book rest service. Methods which reach database run on bounded rest
+ * executor, container thread is released while they wait. When executor is
+ * saturated requests are refused at once with http status
+ * "SERVICE_UNAVAILABLE". Catalog reads are tagged with catalog version,
+ * repeated requests for unchanged catalog get http status "NOT_MODIFIED".
  * 
  * @author PWOJTKOW
  */
@@ -27,18 +58,135 @@ public class BookRestService {
 
 	@Autowired
 	BookService bookService;
+	@Autowired
+	ObjectMapper objectMapper;
+	@Autowired
+	@Qualifier("restExecutor")
+	TaskExecutor restExecutor;
+	@Value("${rest.async.timeout}")
+	Long asyncTimeout;
+
+	// saved books are returned in one response, so request size bounds its memory use
+	public static final int MAX_BATCH_SIZE = 10000;
+
+	// streams hold database connection and container thread while client reads
+	private Semaphore streamPermits;
+
+	// distinguishes catalog versions of different application runs
+	private final String startTime = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+	@Value("${rest.stream.maxConcurrent}")
+	void setMaxConcurrentStreams(int maxConcurrentStreams) {
+		this.streamPermits = new Semaphore(maxConcurrentStreams);
+	}
 
 	/**
 	 * Method returns all books in database
 	 * 
+	 * @param request
+	 *            - current request, checked for "If-None-Match" header
 	 * @return list of all book transfer objects from database and http status
 	 *         "OK" when everything went good, or http status "NO_CONTENT" when
-	 *         no books in database
+	 *         no books in database, or http status "NOT_MODIFIED" when
+	 *         catalog did not change
 	 */
 	@RequestMapping(value = "/rest/books", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<List<BookTo>> getAllBooks() {
-		List<BookTo> allBooks = bookService.findAllBooks();
-		return new ResponseEntity<List<BookTo>>(allBooks, HttpStatus.OK);
+	public DeferredResult<ResponseEntity<List<BookTo>>> getAllBooks(WebRequest request) {
+		if (request.checkNotModified(catalogETag())) {
+			return null;
+		}
+		return async(() -> new ResponseEntity<List<BookTo>>(bookService.findAllBooks(), HttpStatus.OK));
+	}
+
+	/**
+	 * Method writes all books in database straight to the response, one by
+	 * one, as they are read from database. Use it instead of
+	 * {@link #getAllBooks(WebRequest)} when whole catalog is needed, memory use does not
+	 * grow with number of books. Books are written on container thread, which
+	 * keeps database transaction and cursor open until client received
+	 * them, so at most "rest.stream.maxConcurrent" streams run at once.
+	 * Further requests are refused at once with http status
+	 * "SERVICE_UNAVAILABLE", as when rest executor is saturated.
+	 * 
+	 * @param response
+	 *            - response to write json array of books to
+	 * @throws IOException
+	 *             when writing to response failed
+	 */
+	@RequestMapping(value = "/rest/books", params = { "stream=true", "!limit" }, method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public void streamAllBooks(HttpServletResponse response) throws IOException {
+		if (!streamPermits.tryAcquire()) {
+			throw new RejectedExecutionException("Too many catalog streams");
+		}
+		try {
+			writeAllBooks(response);
+		} finally {
+			streamPermits.release();
+		}
+	}
+
+	private void writeAllBooks(HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream(),
+				JsonEncoding.UTF8)) {
+			generator.writeStartArray();
+			try {
+				bookService.streamAllBooks(book -> {
+					try {
+						generator.writeObject(book);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			generator.writeEndArray();
+		}
+	}
+
+	/**
+	 * Method returns one page of books, ordered by id. Link to next page is
+	 * passed in "Link" header with relation "next", it is missing on last
+	 * page.
+	 * 
+	 * @param after
+	 *            - id of last book from previous page, skip it for first page
+	 * @param limit
+	 *            - maximal number of books on page
+	 * @param request
+	 *            - current request, used to build next page link
+	 * @return list of book transfer objects from requested page and http
+	 *         status "OK"
+	 */
+	@RequestMapping(value = "/rest/books", params = "limit", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<List<BookTo>>> getBooksPage(
+			@RequestParam(value = "after", required = false) Long after, @RequestParam("limit") int limit,
+			HttpServletRequest request) {
+		// request is not usable after container thread is released
+		ServletUriComponentsBuilder nextPageBuilder = ServletUriComponentsBuilder.fromRequestUri(request);
+		return async(() -> {
+			List<BookTo> books = bookService.findBooks(after, limit);
+			HttpHeaders headers = new HttpHeaders();
+			if (!books.isEmpty() && books.size() == Math.min(limit, BookService.MAX_PAGE_SIZE)) {
+				String nextPage = nextPageBuilder.queryParam("after", books.get(books.size() - 1).getId())
+						.queryParam("limit", limit).build().toUriString();
+				headers.add("Link", "<" + nextPage + ">; rel=\"next\"");
+			}
+			return new ResponseEntity<List<BookTo>>(books, headers, HttpStatus.OK);
+		});
+	}
+
+	/**
+	 * Method returns number of books in every status. Counters are kept in
+	 * memory, database is not queried.
+	 * 
+	 * @return map from book status to number of books and http status "OK"
+	 */
+	@RequestMapping(value = "/rest/books/stats", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Map<BookStatus, Long>> getBookStats() {
+		return new ResponseEntity<Map<BookStatus, Long>>(bookService.countBooksByStatus(), HttpStatus.OK);
 	}
 
 	/**
@@ -46,41 +194,150 @@ public class BookRestService {
 	 * 
 	 * @param id
 	 *            - id mapped to book
+	 * @param request
+	 *            - current request, checked for "If-None-Match" header
 	 * @return book transfer object with specific id and http status "OK" when
 	 *         everything went good, or http status "NOT_FOUND" when no book
-	 *         with this id in database
+	 *         with this id in database, or http status "NOT_MODIFIED" when
+	 *         catalog did not change
 	 */
 	@RequestMapping(value = "/rest/books/book", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<BookTo> getBookById(@NonNull @RequestParam("id") Long id) {
-		BookTo book = bookService.findBookById(id);
-		return new ResponseEntity<BookTo>(book, HttpStatus.OK);
+	public DeferredResult<ResponseEntity<BookTo>> getBookById(@NonNull @RequestParam("id") Long id,
+			WebRequest request) {
+		if (request.checkNotModified(catalogETag())) {
+			return null;
+		}
+		return async(() -> new ResponseEntity<BookTo>(bookService.findBookById(id), HttpStatus.OK));
 	}
 
 	/**
 	 * Method finds all books with specific argument (when no argument, should be marked as "")
 	 * 
 	 * @param book - book transfer object with params to find
+	 * @param request - current request, checked for "If-None-Match" header
 	 * @return - list of book transfer objects that was found in database, according to params and http status
-	 *         "OK"
+	 *         "OK", or http status "NOT_MODIFIED" when catalog did not change
 	 */
 	@RequestMapping(value = "/rest/books/find", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<List<BookTo>> getBookByAttributes(BookTo book) {
+	public ResponseEntity<List<BookTo>> getBookByAttributes(BookTo book, WebRequest request) {
+		if (request.checkNotModified(catalogETag())) {
+			return null;
+		}
 		List<BookTo> foundBookList = bookService.findBooksByAllFields(book.getTitle(), book.getAuthors(), book.getStatus());
 		return new ResponseEntity<List<BookTo>>(foundBookList, HttpStatus.OK);
 	}
 	
+	/**
+	 * Method finds authors by beginning of their names
+	 * 
+	 * @param name
+	 *            - beginning of author name, case insensitive
+	 * @return - list of author transfer objects ordered by name and http status
+	 *         "OK"
+	 */
+	@RequestMapping(value = "/rest/authors", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<List<AuthorTo>>> getAuthorsByName(@RequestParam("name") String name) {
+		return async(() -> new ResponseEntity<List<AuthorTo>>(bookService.findAuthorsByName(name), HttpStatus.OK));
+	}
+
+	/**
+	 * Method finds all books of one author
+	 * 
+	 * @param name
+	 *            - whole author name, case insensitive
+	 * @return - list of book transfer objects of given author and http status
+	 *         "OK"
+	 */
+	@RequestMapping(value = "/rest/authors/books", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<List<BookTo>>> getBooksOfAuthor(@RequestParam("name") String name) {
+		return async(() -> new ResponseEntity<List<BookTo>>(bookService.findBooksOfAuthor(name), HttpStatus.OK));
+	}
+
+	/**
+	 * Method deletes authors which have no books, authors are kept when
+	 * their last book is deleted
+	 * 
+	 * @return - number of deleted authors and http status "OK"
+	 */
+	@RequestMapping(value = "/rest/authors/unused", method = RequestMethod.DELETE)
+	public DeferredResult<ResponseEntity<Integer>> deleteUnusedAuthors() {
+		return async(() -> new ResponseEntity<Integer>(bookService.deleteUnusedAuthors(), HttpStatus.OK));
+	}
+
 	/**
 	 * Method add new book to database
 	 * 
 	 * @param bookTo
 	 *            - book transfer object with parameters to add to database
-	 * @return - book transfer object that was added to database and http status
-	 *         "CREATED"
+	 * @return - book transfer object that was added to database, with id and
+	 *         version, and http status "CREATED"
 	 */
 	@RequestMapping(value = "/rest/books/add", method = RequestMethod.PUT)
-	public ResponseEntity<BookTo> addBook(@NonNull BookTo bookTo) {
-		bookService.saveBook(bookTo);
-		return new ResponseEntity<BookTo>(bookTo, HttpStatus.CREATED);
+	public DeferredResult<ResponseEntity<BookTo>> addBook(@NonNull BookTo bookTo) {
+		return async(() -> new ResponseEntity<BookTo>(bookService.saveBook(bookTo), HttpStatus.CREATED));
+	}
+
+	/**
+	 * Method adds or updates many books in one request and one transaction
+	 * 
+	 * @param books
+	 *            - json array of book transfer objects, books without id are
+	 *            added, books with id are updated, at most
+	 *            {@link #MAX_BATCH_SIZE} books
+	 * @return - saved book transfer objects, with ids, and http status
+	 *         "CREATED", or http status "REQUEST_ENTITY_TOO_LARGE" when there
+	 *         are more books, bigger imports have to be split
+	 */
+	@RequestMapping(value = "/rest/books/batch", method = RequestMethod.PUT, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<List<BookTo>>> addBooks(@RequestBody List<BookTo> books) {
+		if (books.size() > MAX_BATCH_SIZE) {
+			DeferredResult<ResponseEntity<List<BookTo>>> result = new DeferredResult<ResponseEntity<List<BookTo>>>();
+			result.setResult(new ResponseEntity<List<BookTo>>(HttpStatus.REQUEST_ENTITY_TOO_LARGE));
+			return result;
+		}
+		return async(() -> new ResponseEntity<List<BookTo>>(bookService.saveBooks(books), HttpStatus.CREATED));
+	}
+
+	/**
+	 * Method lends free book
+	 * 
+	 * @param id
+	 *            - id of book to lend
+	 * @return - lent book transfer object and http status "OK", or current
+	 *         book and http status "CONFLICT" when book is not free, or http
+	 *         status "NOT_FOUND" when there is no book with this id
+	 */
+	@RequestMapping(value = "/rest/books/loan", method = RequestMethod.PUT, produces = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<BookTo>> loanBook(@NonNull @RequestParam("id") Long id) {
+		return async(() -> statusChanged(id, bookService.loan(id)));
+	}
+
+	/**
+	 * Method returns lent or missing book, it becomes free
+	 * 
+	 * @param id
+	 *            - id of book to return
+	 * @return - returned book transfer object and http status "OK", or
+	 *         current book and http status "CONFLICT" when book is free, or
+	 *         http status "NOT_FOUND" when there is no book with this id
+	 */
+	@RequestMapping(value = "/rest/books/return", method = RequestMethod.PUT, produces = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<BookTo>> returnBook(@NonNull @RequestParam("id") Long id) {
+		return async(() -> statusChanged(id, bookService.returnBook(id)));
+	}
+
+	/**
+	 * Method marks free or lent book as missing
+	 * 
+	 * @param id
+	 *            - id of missing book
+	 * @return - missing book transfer object and http status "OK", or current
+	 *         book and http status "CONFLICT" when book is already missing,
+	 *         or http status "NOT_FOUND" when there is no book with this id
+	 */
+	@RequestMapping(value = "/rest/books/missing", method = RequestMethod.PUT, produces = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<BookTo>> markBookMissing(@NonNull @RequestParam("id") Long id) {
+		return async(() -> statusChanged(id, bookService.markMissing(id)));
 	}
 
 	/**
@@ -93,10 +350,25 @@ public class BookRestService {
 	 *         when database has not book with this id
 	 */
 	@RequestMapping(value = "/rest/books/delete", method = RequestMethod.DELETE)
-	public ResponseEntity<BookTo> deleteBook(@NonNull @RequestParam("id") Long id) {
-		BookTo book = bookService.findBookById(id);
-		bookService.deleteBook(id);
-		return new ResponseEntity<BookTo>(book, HttpStatus.OK);
+	public DeferredResult<ResponseEntity<BookTo>> deleteBook(@NonNull @RequestParam("id") Long id) {
+		return async(() -> {
+			BookTo book = bookService.findBookById(id);
+			bookService.deleteBook(id);
+			return new ResponseEntity<BookTo>(book, HttpStatus.OK);
+		});
+	}
+
+	/**
+	 * Method delete books with given ids in one request
+	 * 
+	 * @param ids
+	 *            - ids of books to delete, separated with commas
+	 * @return - number of deleted books and http status "OK", ids without
+	 *         book in database are skipped
+	 */
+	@RequestMapping(value = "/rest/books/delete", params = "ids", method = RequestMethod.DELETE)
+	public DeferredResult<ResponseEntity<Integer>> deleteBooks(@RequestParam("ids") List<Long> ids) {
+		return async(() -> new ResponseEntity<Integer>(bookService.deleteBooks(ids), HttpStatus.OK));
 	}
 
 	/**
@@ -106,24 +378,114 @@ public class BookRestService {
 	 *         when everything went good
 	 */
 	@RequestMapping(value = "/rest/books/deleteAll", method = RequestMethod.DELETE)
-	public ResponseEntity<String> deleteAllBooks() {
-		List<BookTo> allBooks = bookService.findAllBooks();
-		for(BookTo book : allBooks) {
-			bookService.deleteBook(book.getId());
-		}
-		String booksDeletedMessage = "All books deleted";
-		return new ResponseEntity<String>(booksDeletedMessage, HttpStatus.OK);
+	public DeferredResult<ResponseEntity<String>> deleteAllBooks() {
+		return async(() -> {
+			bookService.deleteAllBooks();
+			String booksDeletedMessage = "All books deleted";
+			return new ResponseEntity<String>(booksDeletedMessage, HttpStatus.OK);
+		});
 	}
 
 	/**
 	 * Method edits book from database
 	 * 
-	 * @param bookTo - book transfer object with data to update
-	 * @return - book transfer object with changed parameters and http status "OK"
+	 * @param bookTo - book transfer object with data to update, with version of book it was read from
+	 * @return - saved book transfer object with new version and http status "OK", or http status "CONFLICT"
+	 *         when book was changed after given version
 	 */
 	@RequestMapping(value = "/rest/books/edit", method = RequestMethod.PUT)
-	public ResponseEntity<BookTo> editBook(@NonNull BookTo bookTo) {
-		bookService.saveBook(bookTo);
-		return new ResponseEntity<BookTo>(bookTo, HttpStatus.OK);
+	public DeferredResult<ResponseEntity<BookTo>> editBook(@NonNull BookTo bookTo) {
+		return async(() -> new ResponseEntity<BookTo>(bookService.saveBook(bookTo), HttpStatus.OK));
+	}
+
+	/**
+	 * Method answers saves of books changed by someone else after they were
+	 * read
+	 * 
+	 * @param e
+	 *            - exception thrown when saved version is not current
+	 * @return - text message and http status "CONFLICT", client should reload
+	 *         book and apply its changes again
+	 */
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<String> handleConcurrentChange(OptimisticLockingFailureException e) {
+		return new ResponseEntity<String>("Book was changed by someone else, reload it and try again",
+				HttpStatus.CONFLICT);
+	}
+
+	/**
+	 * Method refuses request when rest executor has no free thread nor queue
+	 * slot
+	 * 
+	 * @param e
+	 *            - exception thrown by saturated executor
+	 * @return - text message and http status "SERVICE_UNAVAILABLE", with hint
+	 *         to retry after one second
+	 */
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<String> handleRejectedRequest(RejectedExecutionException e) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.add("Retry-After", "1");
+		return new ResponseEntity<String>("Server is busy, try again later", headers, HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	/**
+	 * Builds response of status change. Failed change is explained with
+	 * current book, it is read only in that case.
+	 * 
+	 * @param id
+	 *            - id of changed book
+	 * @param changedBook
+	 *            - book after change, null when change was not possible
+	 * @return - response with changed or current book
+	 */
+	private ResponseEntity<BookTo> statusChanged(Long id, BookTo changedBook) {
+		if (changedBook != null) {
+			return new ResponseEntity<BookTo>(changedBook, HttpStatus.OK);
+		}
+		BookTo currentBook = bookService.findBookById(id);
+		if (currentBook == null) {
+			return new ResponseEntity<BookTo>(HttpStatus.NOT_FOUND);
+		}
+		return new ResponseEntity<BookTo>(currentBook, HttpStatus.CONFLICT);
+	}
+
+	/**
+	 * Weak entity tag of catalog state. Version is read before books are
+	 * loaded, so tag is never newer than response content. Tag is weak
+	 * because the same content is sent compressed or plain, depending on
+	 * accepted encoding.
+	 * 
+	 * @return - weak quoted tag made of application start time and catalog
+	 *         version
+	 */
+	private String catalogETag() {
+		return "W/\"" + startTime + "-" + bookService.getCatalogVersion() + "\"";
+	}
+
+	/**
+	 * Runs given call on rest executor. Timed out requests are answered with
+	 * http status "SERVICE_UNAVAILABLE" and their call is cancelled, so it
+	 * never starts when it is still queued. Started call is not interrupted,
+	 * interrupt would close file channels of embedded database, it finishes
+	 * and its result is dropped.
+	 * 
+	 * @param call
+	 *            - call to book service, building response
+	 * @return - result completed when call finishes
+	 */
+	private <T> DeferredResult<ResponseEntity<T>> async(Supplier<ResponseEntity<T>> call) {
+		DeferredResult<ResponseEntity<T>> result = new DeferredResult<ResponseEntity<T>>(asyncTimeout,
+				new ResponseEntity<T>(HttpStatus.SERVICE_UNAVAILABLE));
+		FutureTask<Void> task = new FutureTask<Void>(() -> {
+			try {
+				result.setResult(call.get());
+			} catch (RuntimeException e) {
+				result.setErrorResult(e);
+			}
+		}, null);
+		result.onTimeout(() -> task.cancel(false));
+		restExecutor.execute(task);
+		return result;
 	}
 }
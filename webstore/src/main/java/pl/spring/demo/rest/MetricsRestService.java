@@ -0,0 +1,96 @@
+package pl.spring.demo.rest;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import pl.spring.demo.metrics.HandlerMetricsRegistry;
+import pl.spring.demo.metrics.HandlerMetricsTo;
+import pl.spring.demo.service.stats.QueryStatistics;
+import pl.spring.demo.to.QueryStatisticsTo;
+import pl.spring.demo.to.RequestQueryStatisticsTo;
+
+/**
+ * Metrics rest service, shows latency and errors of controller methods
+ * recorded by {@link pl.spring.demo.metrics.HandlerLatencyInterceptor}, and
+ * database queries and statements recorded by {@link QueryStatistics}
+ */
+@Controller
+@ResponseBody
+public class MetricsRestService {
+
+	@Autowired
+	HandlerMetricsRegistry handlerMetricsRegistry;
+
+	@Autowired
+	QueryStatistics queryStatistics;
+
+	/**
+	 * Method returns latency percentiles, request counts and error rates of
+	 * every controller method which handled requests since start or last
+	 * reset
+	 * 
+	 * @return - list of handler metrics ordered by handler name and http
+	 *         status "OK"
+	 */
+	@RequestMapping(value = "/rest/metrics", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<HandlerMetricsTo>> getMetrics() {
+		return new ResponseEntity<List<HandlerMetricsTo>>(handlerMetricsRegistry.getMetrics(), HttpStatus.OK);
+	}
+
+	/**
+	 * Method clears all metrics, e.g. before measuring next load
+	 * 
+	 * @return - text message and http status "OK"
+	 */
+	@RequestMapping(value = "/rest/metrics", method = RequestMethod.DELETE)
+	public ResponseEntity<String> resetMetrics() {
+		handlerMetricsRegistry.reset();
+		return new ResponseEntity<String>("Metrics cleared", HttpStatus.OK);
+	}
+
+	/**
+	 * Method returns execution counts, times and returned rows of every
+	 * query executed since start or last reset. Executions longer than
+	 * query.slowThresholdMillis are counted as slow and logged.
+	 * 
+	 * @return - list of query statistics, longest total time first, and http
+	 *         status "OK"
+	 */
+	@RequestMapping(value = "/rest/metrics/queries", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<QueryStatisticsTo>> getQueryStatistics() {
+		return new ResponseEntity<List<QueryStatisticsTo>>(queryStatistics.getQueries(), HttpStatus.OK);
+	}
+
+	/**
+	 * Method returns numbers of statements prepared by requests of every
+	 * controller method. Requests preparing more than
+	 * query.statementsPerRequestLimit statements are flagged as possible N+1
+	 * selects and logged.
+	 * 
+	 * @return - list of request statistics ordered by handler name and http
+	 *         status "OK"
+	 */
+	@RequestMapping(value = "/rest/metrics/queries/requests", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<RequestQueryStatisticsTo>> getRequestQueryStatistics() {
+		return new ResponseEntity<List<RequestQueryStatisticsTo>>(queryStatistics.getRequests(), HttpStatus.OK);
+	}
+
+	/**
+	 * Method clears query and request statistics
+	 * 
+	 * @return - text message and http status "OK"
+	 */
+	@RequestMapping(value = "/rest/metrics/queries", method = RequestMethod.DELETE)
+	public ResponseEntity<String> resetQueryStatistics() {
+		queryStatistics.reset();
+		return new ResponseEntity<String>("Query statistics cleared", HttpStatus.OK);
+	}
+}
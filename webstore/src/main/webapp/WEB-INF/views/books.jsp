@@ -43,6 +43,21 @@
 					</div>
 				</div>
 			</c:forEach>
+		</div>
+		<div class="row" style="padding-bottom: 15px">
+			<c:if test="${not empty param.after}">
+				<a href="<spring:url value="/books/all?limit=${pageLimit}" />"
+					class="btn btn-default"> <span
+					class="glyphicon glyphicon-fast-backward"></span> first page
+				</a>
+			</c:if>
+			<c:if test="${not empty nextPageAfter}">
+				<a
+					href="<spring:url value="/books/all?after=${nextPageAfter}&limit=${pageLimit}" />"
+					class="btn btn-default"> next page <span
+					class="glyphicon glyphicon-arrow-right"></span>
+				</a>
+			</c:if>
 			<a href="<spring:url value="/" />" class="btn btn-default">
 				<span class="glyphicon-home glyphicon"></span> home
 			</a>
@@ -0,0 +1,28 @@
+<%@page pageEncoding="UTF-8" contentType="text/html; charset=UTF-8"%>
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core"%>
+<%@ taglib prefix="spring" uri="http://www.springframework.org/tags"%>
+
+<html>
+<head>
+<meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
+<link rel="stylesheet"
+	href="//netdna.bootstrapcdn.com/bootstrap/3.0.0/css/bootstrap.min.css">
+<title>Conflict</title>
+</head>
+<body>
+	<section>
+		<div class="jumbotron">
+			<div class="container">
+				<h1>Conflict</h1>
+				<p>${errorMessage}</p>
+			</div>
+		</div>
+		<a href="<spring:url value="/books/all" />" class="btn btn-default">
+			<span class="glyphicon-list glyphicon"></span> books
+		</a>
+		<a href="<spring:url value="/" />" class="btn btn-default"> <span
+			class="glyphicon-home glyphicon"></span> home
+		</a>
+	</section>
+</body>
+</html>
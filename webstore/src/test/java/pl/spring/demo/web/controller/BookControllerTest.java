@@ -5,7 +5,9 @@ package pl.spring.demo.web.controller;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
 import java.util.ArrayList;
@@ -16,12 +18,15 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 
+import pl.spring.demo.constants.MessagesConstants;
 import pl.spring.demo.controller.BookController;
 import pl.spring.demo.service.BookService;
 import pl.spring.demo.to.BookTo;
@@ -80,5 +85,18 @@ public class BookControllerTest {
 		bookList.add(secondBook);
 		mockMvc.perform(get("/books/delete"));
 	}
-	
+
+	@Test
+	public void testSavingBookChangedMeanwhileShowsError() throws Exception {
+		// given
+		when(bookService.saveBook(Mockito.any(BookTo.class)))
+				.thenThrow(new OptimisticLockingFailureException("changed"));
+		// when
+		ResultActions resultActions = mockMvc.perform(post("/books/add").param("id", "1").param("title", "title")
+				.param("authors", "author").param("status", "FREE"));
+		// then
+		resultActions.andExpect(status().isConflict()).andExpect(view().name("conflict"))
+				.andExpect(model().attribute("errorMessage", MessagesConstants.BOOK_CHANGED));
+	}
+
 }
@@ -246,6 +246,41 @@ public class ValidBookControllerTest {
 				}));
 	}
 
+	/**
+	 * Test should gives one page of books with id to start next page after
+	 * @throws Exception when unable to gives view
+	 */
+	@Test
+	public void testBooksPageWithNextPage() throws Exception {
+		// given
+		List<BookTo> bookList = new ArrayList<BookTo>();
+		bookList.add(new BookTo(4L, "Test title", "Test Author", BookStatus.FREE));
+		bookList.add(new BookTo(7L, "Test title", "Test Author", BookStatus.FREE));
+		// when
+		when(bookService.findBooks(3L, 2)).thenReturn(bookList);
+		ResultActions resultActions = mockMvc.perform(get("/books/all").param("after", "3").param("limit", "2"));
+		// then
+		resultActions.andExpect(view().name("books")).andExpect(model().attribute("bookList", bookList))
+				.andExpect(model().attribute("pageLimit", 2)).andExpect(model().attribute("nextPageAfter", 7L));
+	}
+
+	/**
+	 * Test should gives last page of books without next page
+	 * @throws Exception when unable to gives view
+	 */
+	@Test
+	public void testBooksLastPage() throws Exception {
+		// given
+		List<BookTo> bookList = new ArrayList<BookTo>();
+		bookList.add(new BookTo(4L, "Test title", "Test Author", BookStatus.FREE));
+		// when
+		when(bookService.findBooks(3L, 2)).thenReturn(bookList);
+		ResultActions resultActions = mockMvc.perform(get("/books/all").param("after", "3").param("limit", "2"));
+		// then
+		resultActions.andExpect(view().name("books")).andExpect(model().attribute("bookList", bookList))
+				.andExpect(model().attributeDoesNotExist("nextPageAfter"));
+	}
+
 	/**
 	 * Test should gives view add book page when invoke method type GET
 	 * @throws Exception when unable to gives view
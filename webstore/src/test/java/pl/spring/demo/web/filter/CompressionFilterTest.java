@@ -0,0 +1,182 @@
+package pl.spring.demo.web.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import pl.spring.demo.filter.CompressionFilter;
+
+public class CompressionFilterTest {
+
+	private static final String LONG_JSON = "[" + String.join(",",
+			Collections.nCopies(200, "{\"title\":\"book\",\"status\":\"FREE\"}")) + "]";
+
+	private CompressionFilter filter;
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+
+	@Before
+	public void setUp() {
+		filter = new CompressionFilter();
+		filter.setMinSize(1024);
+		request = new MockHttpServletRequest("GET", "/rest/books");
+		response = new MockHttpServletResponse();
+	}
+
+	@Test
+	public void testShouldGzipLongResponse() throws Exception {
+		// given
+		request.addHeader("Accept-Encoding", "deflate, gzip");
+		// when
+		filter.doFilter(request, response, writing("application/json", LONG_JSON));
+		// then
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertTrue(response.getContentAsByteArray().length < LONG_JSON.length());
+		assertEquals(LONG_JSON, read(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+	}
+
+	@Test
+	public void testShouldDeflateWhenGzipIsNotAccepted() throws Exception {
+		// given
+		request.addHeader("Accept-Encoding", "gzip;q=0, deflate");
+		// when
+		filter.doFilter(request, response, writing("application/json", LONG_JSON));
+		// then
+		assertEquals("deflate", response.getHeader("Content-Encoding"));
+		assertEquals(LONG_JSON,
+				read(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+	}
+
+	@Test
+	public void testShouldNotGzipRefusedEncodingForAnyEncoding() throws Exception {
+		// given
+		request.addHeader("Accept-Encoding", "gzip;q=0, *");
+		// when
+		filter.doFilter(request, response, writing("application/json", LONG_JSON));
+		// then
+		assertEquals("deflate", response.getHeader("Content-Encoding"));
+		assertEquals(LONG_JSON,
+				read(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+	}
+
+	@Test
+	public void testShouldNotCompressShortResponse() throws Exception {
+		// given
+		request.addHeader("Accept-Encoding", "gzip");
+		String shortJson = "{\"title\":\"book\"}";
+		// when
+		filter.doFilter(request, response, writing("application/json", shortJson));
+		// then
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(shortJson, response.getContentAsString());
+	}
+
+	@Test
+	public void testShouldNotCompressWithoutAcceptEncoding() throws Exception {
+		// when
+		filter.doFilter(request, response, writing("application/json", LONG_JSON));
+		// then
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(LONG_JSON, response.getContentAsString());
+	}
+
+	@Test
+	public void testShouldNotCompressBinaryContent() throws Exception {
+		// given
+		request.addHeader("Accept-Encoding", "gzip");
+		// when
+		filter.doFilter(request, response, writing("image/png", LONG_JSON));
+		// then
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(LONG_JSON, response.getContentAsString());
+	}
+
+	@Test
+	public void testShouldSendCompressedDataOnFlush() throws Exception {
+		// given
+		request.addHeader("Accept-Encoding", "gzip");
+		byte[] content = LONG_JSON.getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream flushed = new ByteArrayOutputStream();
+		// when
+		filter.doFilter(request, response, (req, res) -> {
+			res.setContentType("application/json");
+			ServletOutputStream out = res.getOutputStream();
+			out.write(content);
+			out.flush();
+			flushed.write(response.getContentAsByteArray());
+		});
+		// then
+		GZIPInputStream partial = new GZIPInputStream(new ByteArrayInputStream(flushed.toByteArray()));
+		byte[] decompressed = new byte[content.length];
+		int read = 0;
+		while (read < content.length) {
+			read += partial.read(decompressed, read, content.length - read);
+		}
+		assertArrayEquals(content, decompressed);
+	}
+
+	@Test
+	public void testShouldCompressResponseOfAsyncDispatch() throws Exception {
+		// given
+		request.addHeader("Accept-Encoding", "gzip");
+		request.setAsyncSupported(true);
+		ServletResponse[] asyncResponse = new ServletResponse[1];
+		filter.doFilter(request, response, (req, res) -> {
+			StandardServletAsyncWebRequest asyncWebRequest = new StandardServletAsyncWebRequest(
+					(HttpServletRequest) req, (HttpServletResponse) res);
+			WebAsyncUtils.getAsyncManager(req).setAsyncWebRequest(asyncWebRequest);
+			asyncWebRequest.startAsync();
+			asyncResponse[0] = res;
+		});
+		assertNull(response.getHeader("Content-Encoding"));
+		request.setAsyncStarted(false);
+		request.setDispatcherType(DispatcherType.ASYNC);
+		// when
+		filter.doFilter(request, asyncResponse[0], writing("application/json", LONG_JSON));
+		// then
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals(LONG_JSON, read(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))));
+	}
+
+	private static FilterChain writing(String contentType, String content) {
+		return (request, response) -> {
+			response.setContentType(contentType);
+			response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+			response.getWriter().write(content);
+		};
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+			out.write(buffer, 0, n);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
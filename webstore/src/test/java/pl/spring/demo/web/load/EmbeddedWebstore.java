@@ -0,0 +1,47 @@
+package pl.spring.demo.web.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+
+/**
+ * Webstore application deployed from its sources in embedded Tomcat, on a
+ * free port. Application classes and libraries come from class path.
+ */
+class EmbeddedWebstore implements AutoCloseable {
+
+	private static final String WEBAPP = "src/main/webapp";
+
+	private final Tomcat tomcat = new Tomcat();
+
+	EmbeddedWebstore() throws IOException, LifecycleException {
+		tomcat.setBaseDir(Files.createTempDirectory("webstore-tomcat").toString());
+		tomcat.setPort(0);
+		tomcat.addWebapp("", webappDirectory().getAbsolutePath());
+		tomcat.start();
+	}
+
+	/**
+	 * @return address of application root, without trailing slash
+	 */
+	String getBaseUrl() {
+		return "http://localhost:" + tomcat.getConnector().getLocalPort();
+	}
+
+	@Override
+	public void close() throws LifecycleException {
+		tomcat.stop();
+		tomcat.destroy();
+	}
+
+	/**
+	 * @return webapp sources, started from module or from parent project
+	 */
+	private static File webappDirectory() {
+		File webapp = new File(WEBAPP);
+		return webapp.isDirectory() ? webapp : new File("webstore", WEBAPP);
+	}
+}
@@ -0,0 +1,118 @@
+package pl.spring.demo.web.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One client of load driver, sends requests one after another until load
+ * ends. Paced clients measure latency from planned start of request, so
+ * stalls of application are not hidden by requests which were not sent.
+ */
+class LoadClient implements Runnable {
+
+	private static final int TIMEOUT_MILLIS = 30000;
+
+	private final String baseUrl;
+	private final Workload workload;
+	private final Operation[] operations;
+	private final int[] cumulativeWeights;
+	private final long intervalNanos;
+	private final long measureFrom;
+	private final long measureTo;
+	private final Map<Operation, OperationStats> stats = new EnumMap<Operation, OperationStats>(Operation.class);
+	private final byte[] buffer = new byte[8192];
+
+	/**
+	 * @param measureFrom
+	 *            - {@link System#nanoTime()} when warmup ends
+	 * @param measureTo
+	 *            - {@link System#nanoTime()} when load ends
+	 */
+	LoadClient(String baseUrl, Workload workload, LoadSettings settings, long measureFrom, long measureTo) {
+		this.baseUrl = baseUrl;
+		this.workload = workload;
+		this.operations = settings.mix.keySet().toArray(new Operation[0]);
+		this.cumulativeWeights = new int[operations.length];
+		int total = 0;
+		for (int i = 0; i < operations.length; i++) {
+			total += settings.mix.get(operations[i]);
+			cumulativeWeights[i] = total;
+		}
+		this.intervalNanos = settings.rate > 0 ? TimeUnit.SECONDS.toNanos(1) / settings.rate : 0;
+		this.measureFrom = measureFrom;
+		this.measureTo = measureTo;
+		for (Operation operation : operations) {
+			stats.put(operation, new OperationStats());
+		}
+	}
+
+	@Override
+	public void run() {
+		long plannedStart = System.nanoTime();
+		while (plannedStart < measureTo) {
+			if (intervalNanos > 0) {
+				LockSupport.parkNanos(plannedStart - System.nanoTime());
+			} else {
+				plannedStart = System.nanoTime();
+			}
+			Operation operation = nextOperation();
+			int status = send(operation.getMethod(), operation.path(workload));
+			long latency = System.nanoTime() - plannedStart;
+			if (plannedStart >= measureFrom) {
+				stats.get(operation).record(status, TimeUnit.NANOSECONDS.toMicros(latency),
+						TimeUnit.NANOSECONDS.toMicros(intervalNanos));
+			}
+			plannedStart += intervalNanos;
+		}
+	}
+
+	Map<Operation, OperationStats> getStats() {
+		return stats;
+	}
+
+	/**
+	 * @return http status of response, 0 when request failed
+	 */
+	private int send(String method, String path) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+			connection.setRequestMethod(method);
+			connection.setConnectTimeout(TIMEOUT_MILLIS);
+			connection.setReadTimeout(TIMEOUT_MILLIS);
+			// compressed responses are read, not decoded
+			connection.setRequestProperty("Accept-Encoding", "gzip");
+			int status = connection.getResponseCode();
+			InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if (in != null) {
+				// reading whole response lets connection be reused
+				try {
+					while (in.read(buffer) >= 0) {
+						// skipped
+					}
+				} finally {
+					in.close();
+				}
+			}
+			return status;
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private Operation nextOperation() {
+		int draw = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (draw < cumulativeWeights[i]) {
+				return operations[i];
+			}
+		}
+		return operations[operations.length - 1];
+	}
+}
@@ -0,0 +1,123 @@
+package pl.spring.demo.web.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Drives REST and MVC endpoints of webstore, deployed in embedded container,
+ * with concurrent clients sending a mix of reads and writes. Reports
+ * throughput and latency percentiles of every operation. Run it with
+ * 
+ * <pre>
+ * mvn -Pload -pl webstore -am -DskipTests verify -Dload.args="clients=32 duration=60"
+ * </pre>
+ * 
+ * options are described in {@link LoadSettings}.
+ */
+public class LoadDriver {
+
+	private static final int SEED_CHUNK_SIZE = 1000;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final String baseUrl;
+	private final LoadSettings settings;
+
+	/**
+	 * @param baseUrl
+	 *            - address of application root, without trailing slash
+	 */
+	LoadDriver(String baseUrl, LoadSettings settings) {
+		this.baseUrl = baseUrl;
+		this.settings = settings;
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadSettings settings = LoadSettings.parse(args);
+		try (EmbeddedWebstore webstore = new EmbeddedWebstore()) {
+			System.out.println("Load: " + settings);
+			new LoadDriver(webstore.getBaseUrl(), settings).run().print(System.out);
+		}
+	}
+
+	/**
+	 * Seeds books, then runs all clients until load ends
+	 * 
+	 * @return statistics of measured load, without warmup
+	 */
+	LoadReport run() throws IOException, InterruptedException, ExecutionException {
+		if (settings.books < 1 || settings.clients < 1 || settings.mix.isEmpty()) {
+			throw new IllegalArgumentException("Load needs books, clients and operations: " + settings);
+		}
+		Workload workload = new Workload(settings.books);
+		workload.setBookIds(seed(workload));
+		long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+		long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+		List<LoadClient> clients = new ArrayList<LoadClient>(settings.clients);
+		ExecutorService executor = Executors.newFixedThreadPool(settings.clients);
+		try {
+			List<Future<?>> running = new ArrayList<Future<?>>(settings.clients);
+			for (int i = 0; i < settings.clients; i++) {
+				LoadClient client = new LoadClient(baseUrl, workload, settings, measureFrom, measureTo);
+				clients.add(client);
+				running.add(executor.submit(client));
+			}
+			for (Future<?> client : running) {
+				client.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		LoadReport report = new LoadReport(settings.durationSeconds);
+		clients.forEach(client -> report.add(client.getStats()));
+		return report;
+	}
+
+	/**
+	 * Adds books through batch endpoint
+	 * 
+	 * @return ids of added books
+	 */
+	private long[] seed(Workload workload) throws IOException {
+		long[] bookIds = new long[settings.books];
+		for (int from = 0; from < settings.books; from += SEED_CHUNK_SIZE) {
+			int to = Math.min(from + SEED_CHUNK_SIZE, settings.books);
+			List<BookTo> savedBooks = saveBooks(workload.books(from, to));
+			for (int i = 0; i < savedBooks.size(); i++) {
+				bookIds[from + i] = savedBooks.get(i).getId();
+			}
+		}
+		return bookIds;
+	}
+
+	private List<BookTo> saveBooks(List<BookTo> books) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/rest/books/batch").openConnection();
+		connection.setRequestMethod("PUT");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json");
+		try (OutputStream out = connection.getOutputStream()) {
+			objectMapper.writeValue(out, books);
+		}
+		if (connection.getResponseCode() != HttpURLConnection.HTTP_CREATED) {
+			throw new IllegalStateException("Books were not seeded, status: " + connection.getResponseCode());
+		}
+		try (InputStream in = connection.getInputStream()) {
+			return objectMapper.readValue(in, new TypeReference<List<BookTo>>() {
+			});
+		}
+	}
+}
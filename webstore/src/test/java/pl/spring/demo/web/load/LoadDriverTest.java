@@ -0,0 +1,38 @@
+package pl.spring.demo.web.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Short load of webstore deployed in embedded container, checks that the
+ * whole application serves concurrent requests
+ */
+public class LoadDriverTest {
+
+	@Test
+	public void testShouldServeConcurrentClientsWithoutErrors() throws Exception {
+		// given
+		LoadSettings settings = LoadSettings.parse("clients=4", "warmup=1", "duration=2", "books=200");
+		try (EmbeddedWebstore webstore = new EmbeddedWebstore()) {
+			// when
+			LoadReport report = new LoadDriver(webstore.getBaseUrl(), settings).run();
+			// then
+			assertTrue(report.getTotal().getCount() > 0);
+			assertTrue(report.getTotal().getOk() > 0);
+			assertEquals(0, report.getTotal().getErrors());
+			assertEquals(0, report.getTotal().getRejected());
+		}
+	}
+
+	@Test
+	public void testShouldSendOnlyOperationsOfGivenMix() throws Exception {
+		// when
+		LoadSettings settings = LoadSettings.parse("mix=rest-find:3, mvc-book:1");
+		// then
+		assertEquals(2, settings.mix.size());
+		assertEquals(Integer.valueOf(3), settings.mix.get(Operation.REST_FIND));
+		assertEquals(Integer.valueOf(1), settings.mix.get(Operation.MVC_BOOK));
+	}
+}
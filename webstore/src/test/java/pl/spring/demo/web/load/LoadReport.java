@@ -0,0 +1,69 @@
+package pl.spring.demo.web.load;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Statistics of all clients, per operation and in total
+ */
+class LoadReport {
+
+	private static final String ROW_FORMAT = "%-12s %9s %9s %9s %9s %9s %10s %9s %9s %9s %9s%n";
+	private static final double MICROS_PER_MILLI = 1000.0;
+
+	private final Map<Operation, OperationStats> operations = new EnumMap<Operation, OperationStats>(Operation.class);
+	private final OperationStats total = new OperationStats();
+	private final double seconds;
+
+	/**
+	 * @param seconds
+	 *            - duration of measured load
+	 */
+	LoadReport(double seconds) {
+		this.seconds = seconds;
+	}
+
+	void add(Map<Operation, OperationStats> clientStats) {
+		clientStats.forEach((operation, stats) -> {
+			operations.computeIfAbsent(operation, key -> new OperationStats()).add(stats);
+			total.add(stats);
+		});
+	}
+
+	OperationStats getTotal() {
+		return total;
+	}
+
+	OperationStats get(Operation operation) {
+		return operations.get(operation);
+	}
+
+	/**
+	 * @return requests per second of all operations
+	 */
+	double getThroughput() {
+		return total.getCount() / seconds;
+	}
+
+	void print(PrintStream out) {
+		out.printf(ROW_FORMAT, "operation", "requests", "ok", "conflict", "rejected", "error", "req/s", "p50 ms",
+				"p99 ms", "p999 ms", "max ms");
+		operations.forEach((operation, stats) -> printRow(out, operation.label(), stats));
+		printRow(out, "total", total);
+	}
+
+	private void printRow(PrintStream out, String name, OperationStats stats) {
+		Histogram latencies = stats.getLatencies();
+		out.printf(ROW_FORMAT, name, stats.getCount(), stats.getOk(), stats.getConflicts(), stats.getRejected(),
+				stats.getErrors(), String.format("%.1f", stats.getCount() / seconds),
+				millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+				millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+	}
+
+	private static String millis(long micros) {
+		return String.format("%.2f", micros / MICROS_PER_MILLI);
+	}
+}
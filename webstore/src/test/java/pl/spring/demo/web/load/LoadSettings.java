@@ -0,0 +1,81 @@
+package pl.spring.demo.web.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load driver options, given as name=value arguments:
+ * <ul>
+ * <li>clients - number of concurrent clients, default 16</li>
+ * <li>warmup - seconds of load before measurement, default 10</li>
+ * <li>duration - seconds of measured load, default 30</li>
+ * <li>books - number of books seeded before load, default 10000</li>
+ * <li>rate - requests per second of every client, default 0 sends requests
+ * without pause</li>
+ * <li>mix - operation weights, e.g. rest-find:80,rest-loan:20, operations
+ * not given are not sent; default mix of {@link Operation} is used when
+ * missing</li>
+ * </ul>
+ */
+class LoadSettings {
+
+	int clients = 16;
+	int warmupSeconds = 10;
+	int durationSeconds = 30;
+	int books = 10000;
+	int rate;
+	Map<Operation, Integer> mix = Operation.defaultMix();
+
+	static LoadSettings parse(String... args) {
+		LoadSettings settings = new LoadSettings();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Expected name=value option, got: " + arg);
+			}
+			String name = arg.substring(0, separator);
+			String value = arg.substring(separator + 1);
+			switch (name) {
+			case "clients":
+				settings.clients = Integer.parseInt(value);
+				break;
+			case "warmup":
+				settings.warmupSeconds = Integer.parseInt(value);
+				break;
+			case "duration":
+				settings.durationSeconds = Integer.parseInt(value);
+				break;
+			case "books":
+				settings.books = Integer.parseInt(value);
+				break;
+			case "rate":
+				settings.rate = Integer.parseInt(value);
+				break;
+			case "mix":
+				settings.mix = parseMix(value);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + name);
+			}
+		}
+		return settings;
+	}
+
+	private static Map<Operation, Integer> parseMix(String value) {
+		Map<Operation, Integer> mix = new EnumMap<Operation, Integer>(Operation.class);
+		for (String entry : value.split(",")) {
+			String[] parts = entry.split(":");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Expected operation:weight, got: " + entry);
+			}
+			mix.put(Operation.ofLabel(parts[0]), Integer.parseInt(parts[1].trim()));
+		}
+		return mix;
+	}
+
+	@Override
+	public String toString() {
+		return "clients=" + clients + " warmup=" + warmupSeconds + "s duration=" + durationSeconds + "s books="
+				+ books + " rate=" + (rate > 0 ? rate + "/s per client" : "unlimited") + " mix=" + mix;
+	}
+}
@@ -0,0 +1,130 @@
+package pl.spring.demo.web.load;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Requests sent by load driver, with their default share of all requests.
+ * Reads and writes of REST service, and pages of MVC controller.
+ */
+enum Operation {
+
+	REST_FIND(20) {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books/find?title=" + Workload.encode(workload.titleFragment());
+		}
+	},
+	REST_BOOK(15) {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books/book?id=" + workload.bookId();
+		}
+	},
+	REST_PAGE(10) {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books?limit=" + PAGE_SIZE + "&after=" + workload.bookId();
+		}
+	},
+	REST_AUTHOR(5) {
+		@Override
+		String path(Workload workload) {
+			return "/rest/authors/books?name=" + Workload.encode(workload.authorName());
+		}
+	},
+	REST_STATS(5) {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books/stats";
+		}
+	},
+	MVC_PAGE(10) {
+		@Override
+		String path(Workload workload) {
+			return "/books/all?limit=" + PAGE_SIZE + "&after=" + workload.bookId();
+		}
+	},
+	MVC_BOOK(10) {
+		@Override
+		String path(Workload workload) {
+			return "/books/book?id=" + workload.bookId();
+		}
+	},
+	MVC_SEARCH(5, "POST") {
+		@Override
+		String path(Workload workload) {
+			return "/books/search?title=" + Workload.encode(workload.titleFragment());
+		}
+	},
+	REST_ADD(4, "PUT") {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books/add?" + workload.newBookParameters();
+		}
+	},
+	REST_EDIT(4, "PUT") {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books/edit?id=" + workload.bookId() + "&" + workload.newBookParameters();
+		}
+	},
+	REST_LOAN(6, "PUT") {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books/loan?id=" + workload.bookId();
+		}
+	},
+	REST_RETURN(6, "PUT") {
+		@Override
+		String path(Workload workload) {
+			return "/rest/books/return?id=" + workload.bookId();
+		}
+	};
+
+	private static final int PAGE_SIZE = 50;
+
+	private final int defaultWeight;
+	private final String method;
+
+	private Operation(int defaultWeight) {
+		this(defaultWeight, "GET");
+	}
+
+	private Operation(int defaultWeight, String method) {
+		this.defaultWeight = defaultWeight;
+		this.method = method;
+	}
+
+	/**
+	 * @return path and query of next request
+	 */
+	abstract String path(Workload workload);
+
+	String getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return name used in mix option and report, e.g. rest-find
+	 */
+	String label() {
+		return name().toLowerCase(Locale.ROOT).replace('_', '-');
+	}
+
+	static Operation ofLabel(String label) {
+		return valueOf(label.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+	}
+
+	/**
+	 * @return default weights of all operations, they sum up to 100
+	 */
+	static Map<Operation, Integer> defaultMix() {
+		Map<Operation, Integer> mix = new EnumMap<Operation, Integer>(Operation.class);
+		for (Operation operation : values()) {
+			mix.put(operation, operation.defaultWeight);
+		}
+		return mix;
+	}
+}
@@ -0,0 +1,87 @@
+package pl.spring.demo.web.load;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies, in microseconds, and outcomes of one operation. Not thread
+ * safe, every client keeps its own statistics, they are merged when load
+ * ends.
+ */
+class OperationStats {
+
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Histogram latencies = new Histogram(SIGNIFICANT_DIGITS);
+	private long ok;
+	private long conflicts;
+	private long rejected;
+	private long errors;
+
+	/**
+	 * @param status
+	 *            - http status of response, 0 when request failed
+	 * @param latencyMicros
+	 *            - time from request start to end of response
+	 * @param expectedIntervalMicros
+	 *            - interval between requests of paced client, 0 for client
+	 *            sending requests without pause
+	 */
+	void record(int status, long latencyMicros, long expectedIntervalMicros) {
+		if (expectedIntervalMicros > 0) {
+			latencies.recordValueWithExpectedInterval(latencyMicros, expectedIntervalMicros);
+		} else {
+			latencies.recordValue(latencyMicros);
+		}
+		if (status >= 200 && status < 400) {
+			ok++;
+		} else if (status == 409) {
+			conflicts++;
+		} else if (status == 503) {
+			rejected++;
+		} else {
+			errors++;
+		}
+	}
+
+	void add(OperationStats other) {
+		latencies.add(other.latencies);
+		ok += other.ok;
+		conflicts += other.conflicts;
+		rejected += other.rejected;
+		errors += other.errors;
+	}
+
+	Histogram getLatencies() {
+		return latencies;
+	}
+
+	long getCount() {
+		return ok + conflicts + rejected + errors;
+	}
+
+	long getOk() {
+		return ok;
+	}
+
+	/**
+	 * @return number of 409 responses, expected when clients change the same
+	 *         book
+	 */
+	long getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * @return number of 503 responses, sent when rest executor is saturated
+	 */
+	long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return number of other error responses and failed requests
+	 */
+	long getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,89 @@
+package pl.spring.demo.web.load;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.to.BookTo;
+
+/**
+ * Generated books and request parameters matching them. Requests refer to
+ * books seeded before load starts, chosen at random.
+ */
+class Workload {
+
+	private static final String[] WORDS = { "River", "Kingdom", "Garden", "Empire", "Shadow", "Winter", "Harbor",
+			"Forest", "Machine", "Letter", "Island", "Mountain", "Station", "Promise", "Tower", "Voyage", "Mirror",
+			"Storm", "Bridge", "Orchard" };
+	private static final int BOOKS_PER_AUTHOR = 20;
+
+	private final int authorCount;
+	private volatile long[] bookIds = new long[0];
+
+	/**
+	 * @param books
+	 *            - number of seeded books
+	 */
+	Workload(int books) {
+		this.authorCount = Math.max(1, books / BOOKS_PER_AUTHOR);
+	}
+
+	/**
+	 * @param from
+	 *            - number of first book, inclusive
+	 * @param to
+	 *            - number of last book, exclusive
+	 * @return new books, without ids
+	 */
+	List<BookTo> books(int from, int to) {
+		List<BookTo> books = new ArrayList<BookTo>(to - from);
+		for (int book = from; book < to; book++) {
+			books.add(new BookTo(title(book), author(book % authorCount), BookStatus.FREE));
+		}
+		return books;
+	}
+
+	void setBookIds(long[] bookIds) {
+		this.bookIds = bookIds;
+	}
+
+	long bookId() {
+		return bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)];
+	}
+
+	String titleFragment() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return WORDS[random.nextInt(WORDS.length)] + " " + (random.nextInt(9) + 1);
+	}
+
+	String authorName() {
+		return author(ThreadLocalRandom.current().nextInt(authorCount));
+	}
+
+	/**
+	 * @return query parameters of new book, also used to edit existing books
+	 */
+	String newBookParameters() {
+		int book = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+		return "title=" + encode(title(book)) + "&authors=" + encode(author(book % authorCount)) + "&status=FREE";
+	}
+
+	static String encode(String text) {
+		try {
+			return URLEncoder.encode(text, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String title(int book) {
+		return WORDS[book % WORDS.length] + " " + book;
+	}
+
+	private static String author(int author) {
+		return "Author " + author;
+	}
+}
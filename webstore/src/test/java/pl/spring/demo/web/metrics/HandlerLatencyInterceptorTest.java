@@ -0,0 +1,170 @@
+package pl.spring.demo.web.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import pl.spring.demo.metrics.HandlerMetricsRegistry;
+import pl.spring.demo.metrics.HandlerMetricsTo;
+import pl.spring.demo.service.stats.QueryStatistics;
+import pl.spring.demo.to.QueryStatisticsTo;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@WebAppConfiguration
+public class HandlerLatencyInterceptorTest {
+
+	@Autowired
+	private HandlerMetricsRegistry handlerMetricsRegistry;
+	@Autowired
+	private QueryStatistics queryStatistics;
+	@Autowired
+	private TestController testController;
+	@Autowired
+	private WebApplicationContext wac;
+
+	private MockMvc mockMvc;
+
+	@Before
+	public void setUp() {
+		handlerMetricsRegistry.reset();
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+	}
+
+	@Test
+	public void testShouldRecordEveryRequestOfHandler() throws Exception {
+		// when
+		mockMvc.perform(get("/test/ok")).andExpect(status().isOk());
+		mockMvc.perform(get("/test/ok")).andExpect(status().isOk());
+		// then
+		HandlerMetricsTo metrics = metricsOf("TestController.ok");
+		assertEquals(2, metrics.getCount());
+		assertEquals(0, metrics.getErrors());
+		assertTrue(metrics.getMaxMillis() >= metrics.getP50Millis());
+	}
+
+	@Test
+	public void testShouldCountClientAndServerErrors() throws Exception {
+		// when
+		mockMvc.perform(get("/test/missing")).andExpect(status().isNotFound());
+		try {
+			mockMvc.perform(get("/test/failure"));
+			fail("Handler exception expected");
+		} catch (Exception e) {
+			// not handled by application, container answers it
+		}
+		// then
+		assertEquals(1, metricsOf("TestController.missing").getClientErrors());
+		HandlerMetricsTo failure = metricsOf("TestController.failure");
+		assertEquals(1, failure.getErrors());
+		assertEquals(1.0, failure.getErrorRate(), 0.0);
+	}
+
+	@Test
+	public void testShouldRecordAsyncRequestOnceWhenCompleted() throws Exception {
+		// when
+		MvcResult result = mockMvc.perform(get("/test/async")).andExpect(request().asyncStarted()).andReturn();
+		boolean recordedBeforeCompletion = isRecorded("TestController.async");
+		testController.asyncResult.setResult("async");
+		result.getAsyncResult(1000);
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		// then
+		assertFalse(recordedBeforeCompletion);
+		assertEquals(1, metricsOf("TestController.async").getCount());
+	}
+
+	@Test
+	public void testShouldShowAndResetMetrics() throws Exception {
+		// given
+		mockMvc.perform(get("/test/ok"));
+		// when
+		mockMvc.perform(get("/rest/metrics")).andExpect(status().isOk())
+				.andExpect(jsonPath("[0].handler").value("TestController.ok"))
+				.andExpect(jsonPath("[0].count").value(1));
+		mockMvc.perform(delete("/rest/metrics")).andExpect(status().isOk());
+		// then
+		assertFalse(isRecorded("TestController.ok"));
+	}
+
+	@Test
+	public void testShouldShowAndResetQueryStatistics() throws Exception {
+		// given
+		QueryStatisticsTo query = new QueryStatisticsTo();
+		query.setQuery("select book from BookEntity book");
+		query.setExecutions(3);
+		Mockito.when(queryStatistics.getQueries()).thenReturn(Collections.singletonList(query));
+		// when
+		mockMvc.perform(get("/rest/metrics/queries")).andExpect(status().isOk())
+				.andExpect(jsonPath("[0].query").value("select book from BookEntity book"))
+				.andExpect(jsonPath("[0].executions").value(3));
+		mockMvc.perform(delete("/rest/metrics/queries")).andExpect(status().isOk());
+		// then
+		Mockito.verify(queryStatistics).reset();
+	}
+
+	private boolean isRecorded(String handler) {
+		return handlerMetricsRegistry.getMetrics().stream().anyMatch(metrics -> handler.equals(metrics.getHandler()));
+	}
+
+	private HandlerMetricsTo metricsOf(String handler) {
+		return handlerMetricsRegistry.getMetrics().stream().filter(metrics -> handler.equals(metrics.getHandler()))
+				.findFirst().orElseThrow(() -> new AssertionError("No metrics of " + handler));
+	}
+
+	@Controller
+	@ResponseBody
+	public static class TestController {
+
+		private DeferredResult<String> asyncResult;
+
+		@RequestMapping("/test/ok")
+		public String ok() {
+			return "ok";
+		}
+
+		@RequestMapping("/test/missing")
+		public ResponseEntity<String> missing() {
+			return new ResponseEntity<String>(HttpStatus.NOT_FOUND);
+		}
+
+		@RequestMapping("/test/failure")
+		public String failure() {
+			throw new IllegalStateException("failure");
+		}
+
+		@RequestMapping("/test/async")
+		public DeferredResult<String> async() {
+			// completed later by test
+			asyncResult = new DeferredResult<String>();
+			return asyncResult;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package pl.spring.demo.web.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import pl.spring.demo.jpa.QueryScope;
+import pl.spring.demo.metrics.QueryScopeInterceptor;
+import pl.spring.demo.metrics.QueryScopeTaskExecutor;
+import pl.spring.demo.service.stats.QueryStatistics;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryScopeInterceptorTest {
+
+	@Mock
+	private QueryStatistics queryStatistics;
+
+	@InjectMocks
+	private QueryScopeInterceptor interceptor;
+
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+	private HandlerMethod handler;
+
+	@Before
+	public void setUp() throws NoSuchMethodException {
+		Mockito.when(queryStatistics.openScope(Mockito.anyString())).thenCallRealMethod();
+		Mockito.doAnswer(invocation -> {
+			QueryScope.detach();
+			return null;
+		}).when(queryStatistics).closeScope(Mockito.any(QueryScope.class));
+		request = new MockHttpServletRequest("GET", "/test");
+		response = new MockHttpServletResponse();
+		handler = new HandlerMethod(new TestController(), "handle");
+	}
+
+	@After
+	public void tearDown() {
+		QueryScope.detach();
+	}
+
+	@Test
+	public void testShouldCountRequestInScopeNamedAfterHandler() throws Exception {
+		// when
+		interceptor.preHandle(request, response, handler);
+		QueryScope scope = QueryScope.current();
+		interceptor.afterCompletion(request, response, handler, null);
+		// then
+		assertNotNull(scope);
+		assertEquals("TestController.handle", scope.getName());
+		Mockito.verify(queryStatistics).closeScope(scope);
+		assertNull(QueryScope.current());
+	}
+
+	@Test
+	public void testShouldKeepScopeOfAsyncRequestUntilAsyncDispatchCompletes() throws Exception {
+		// given
+		QueryScope[] taskScope = new QueryScope[1];
+		QueryScopeTaskExecutor executor = new QueryScopeTaskExecutor(new SyncTaskExecutor());
+		// when
+		interceptor.preHandle(request, response, handler);
+		QueryScope scope = QueryScope.current();
+		executor.execute(() -> taskScope[0] = QueryScope.current());
+		interceptor.afterConcurrentHandlingStarted(request, response, handler);
+		QueryScope scopeBetweenDispatches = QueryScope.current();
+		interceptor.preHandle(request, response, handler);
+		QueryScope asyncDispatchScope = QueryScope.current();
+		interceptor.afterCompletion(request, response, handler, null);
+		// then
+		assertSame(scope, taskScope[0]);
+		assertNull(scopeBetweenDispatches);
+		assertSame(scope, asyncDispatchScope);
+		Mockito.verify(queryStatistics, Mockito.times(1)).openScope(Mockito.anyString());
+		Mockito.verify(queryStatistics, Mockito.times(1)).closeScope(scope);
+	}
+
+	@Test
+	public void testShouldRunTaskWithoutScopeWhenSubmittedOutsideRequest() {
+		// given
+		QueryScope[] taskScope = { new QueryScope("unexpected") };
+		QueryScopeTaskExecutor executor = new QueryScopeTaskExecutor(new SyncTaskExecutor());
+		// when
+		executor.execute(() -> taskScope[0] = QueryScope.current());
+		// then
+		assertNull(taskScope[0]);
+	}
+
+	public static class TestController {
+
+		public String handle() {
+			return "ok";
+		}
+	}
+}
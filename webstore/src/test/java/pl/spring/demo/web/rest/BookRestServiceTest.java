@@ -2,31 +2,62 @@ package pl.spring.demo.web.rest;
 
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import pl.spring.demo.entity.BookEntity;
 import pl.spring.demo.enumerations.BookStatus;
+import pl.spring.demo.rest.BookRestService;
 import pl.spring.demo.service.BookService;
 import pl.spring.demo.to.BookTo;
 import pl.spring.demo.web.utils.FileUtils;
@@ -44,13 +75,21 @@ public class BookRestServiceTest {
 	@Autowired
 	private BookService bookService;
 	@Autowired
+	private TaskExecutor restExecutor;
+	@Autowired
 	private WebApplicationContext wac;
+	@Value("${rest.stream.maxConcurrent}")
+	private int maxConcurrentStreams;
 
 	private MockMvc mockMvc;
 
 	@Before
 	public void setUp() {
-		Mockito.reset(bookService);
+		Mockito.reset(bookService, restExecutor);
+		Mockito.doAnswer(invocation -> {
+			((Runnable) invocation.getArguments()[0]).run();
+			return null;
+		}).when(restExecutor).execute(Mockito.any());
 		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
 	}
 
@@ -68,8 +107,8 @@ public class BookRestServiceTest {
 
 		Mockito.when(bookService.findAllBooks()).thenReturn(Arrays.asList(bookTo1));
 		// when
-		ResultActions response = this.mockMvc
-				.perform(get("/rest/books").accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON));
+		ResultActions response = performAsync(
+				get("/rest/books").accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON));
 		// then
 		response.andExpect(status().isOk())//
 				.andExpect(jsonPath("[0].id").value(bookTo1.getId().intValue()))
@@ -77,6 +116,222 @@ public class BookRestServiceTest {
 				.andExpect(jsonPath("[0].authors").value(bookTo1.getAuthors()));
 	}
 
+	/**
+	 * Test should stream all books as json array
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testShouldStreamAllBooks() throws Exception {
+		// given:
+		final BookTo bookTo1 = new BookTo(1L, "title", "Author1", BookStatus.FREE);
+		final BookTo bookTo2 = new BookTo(2L, "title2", "Author2", BookStatus.LOAN);
+		Mockito.doAnswer(invocation -> {
+			Consumer<BookTo> consumer = (Consumer<BookTo>) invocation.getArguments()[0];
+			consumer.accept(bookTo1);
+			consumer.accept(bookTo2);
+			return null;
+		}).when(bookService).streamAllBooks(Mockito.any());
+		// when
+		ResultActions response = this.mockMvc.perform(get("/rest/books").param("stream", "true")
+				.accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON));
+		// then
+		response.andExpect(status().isOk())//
+				.andExpect(jsonPath("[0].id").value(bookTo1.getId().intValue()))
+				.andExpect(jsonPath("[1].title").value(bookTo2.getTitle()))
+				.andExpect(jsonPath("[1].status").value(bookTo2.getStatus().toString()));
+	}
+
+	/**
+	 * Test should refuse stream when as many streams as allowed are running
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldRefuseStreamAboveConcurrentLimit() throws Exception {
+		// given
+		CountDownLatch streamsStarted = new CountDownLatch(maxConcurrentStreams);
+		CountDownLatch streamsReleased = new CountDownLatch(1);
+		Mockito.doAnswer(invocation -> {
+			streamsStarted.countDown();
+			streamsReleased.await(10, TimeUnit.SECONDS);
+			return null;
+		}).when(bookService).streamAllBooks(Mockito.any());
+		ExecutorService executor = Executors.newFixedThreadPool(maxConcurrentStreams);
+		List<Future<MvcResult>> runningStreams = new ArrayList<Future<MvcResult>>();
+		for (int i = 0; i < maxConcurrentStreams; i++) {
+			runningStreams.add(executor.submit(
+					() -> this.mockMvc.perform(get("/rest/books").param("stream", "true")).andReturn()));
+		}
+		assertTrue(streamsStarted.await(10, TimeUnit.SECONDS));
+		try {
+			// when
+			ResultActions response = this.mockMvc.perform(get("/rest/books").param("stream", "true"));
+			// then
+			response.andExpect(status().isServiceUnavailable()).andExpect(header().string("Retry-After", "1"));
+		} finally {
+			streamsReleased.countDown();
+			executor.shutdown();
+		}
+		for (Future<MvcResult> stream : runningStreams) {
+			assertEquals(200, stream.get(10, TimeUnit.SECONDS).getResponse().getStatus());
+		}
+	}
+
+	/**
+	 * Test should serve page, not stream, when both stream and limit are given
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldGetPageWhenStreamAndLimitAreGiven() throws Exception {
+		// given
+		Mockito.when(bookService.findBooks(null, 1))
+				.thenReturn(Arrays.asList(new BookTo(1L, "title", "Author1", BookStatus.FREE)));
+		// when
+		ResultActions response = performAsync(get("/rest/books").param("stream", "true").param("limit", "1")
+				.accept(MediaType.APPLICATION_JSON));
+		// then
+		response.andExpect(status().isOk()).andExpect(jsonPath("[0].id").value(1));
+		verify(bookService, times(0)).streamAllBooks(Mockito.any());
+	}
+
+	/**
+	 * Test should get first page of books with link to next page
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldGetBooksPageWithNextLink() throws Exception {
+		// given:
+		final BookTo bookTo1 = new BookTo(1L, "title", "Author1", BookStatus.FREE);
+		final BookTo bookTo2 = new BookTo(5L, "title", "Author2", BookStatus.FREE);
+		Mockito.when(bookService.findBooks(null, 2)).thenReturn(Arrays.asList(bookTo1, bookTo2));
+		// when
+		ResultActions response = performAsync(get("/rest/books").param("limit", "2")
+				.accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON));
+		// then
+		response.andExpect(status().isOk())//
+				.andExpect(jsonPath("[0].id").value(bookTo1.getId().intValue()))
+				.andExpect(jsonPath("[1].id").value(bookTo2.getId().intValue()))
+				.andExpect(header().string("Link", "<http://localhost/rest/books?after=5&limit=2>; rel=\"next\""));
+	}
+
+	/**
+	 * Test should get last page of books without link to next page
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldGetLastBooksPage() throws Exception {
+		// given:
+		final BookTo bookTo = new BookTo(9L, "title", "Author1", BookStatus.FREE);
+		Mockito.when(bookService.findBooks(5L, 2)).thenReturn(Arrays.asList(bookTo));
+		// when
+		ResultActions response = performAsync(get("/rest/books").param("after", "5").param("limit", "2")
+				.accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON));
+		// then
+		response.andExpect(status().isOk())//
+				.andExpect(jsonPath("[0].id").value(bookTo.getId().intValue()))
+				.andExpect(header().doesNotExist("Link"));
+	}
+
+	/**
+	 * Test should get number of books in every status
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldGetBookStats() throws Exception {
+		// given
+		Map<BookStatus, Long> booksByStatus = new EnumMap<BookStatus, Long>(BookStatus.class);
+		booksByStatus.put(BookStatus.FREE, 7L);
+		booksByStatus.put(BookStatus.LOAN, 2L);
+		booksByStatus.put(BookStatus.MISSING, 0L);
+		Mockito.when(bookService.countBooksByStatus()).thenReturn(booksByStatus);
+		// when
+		ResultActions response = this.mockMvc.perform(get("/rest/books/stats"));
+		// then
+		response.andExpect(status().isOk())//
+				.andExpect(jsonPath("FREE").value(7))
+				.andExpect(jsonPath("LOAN").value(2))
+				.andExpect(jsonPath("MISSING").value(0));
+		verify(bookService, times(0)).findAllBooks();
+	}
+
+	/**
+	 * Test should answer repeated request for unchanged catalog with "NOT_MODIFIED"
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldNotSendUnchangedCatalogAgain() throws Exception {
+		// given
+		Mockito.when(bookService.getCatalogVersion()).thenReturn(3L);
+		Mockito.when(bookService.findAllBooks())
+				.thenReturn(Arrays.asList(new BookTo(1L, "title", "Author1", BookStatus.FREE)));
+		// tag is set before request goes asynchronous
+		String eTag = this.mockMvc.perform(get("/rest/books")).andReturn().getResponse().getHeader("ETag");
+		// when
+		ResultActions response = this.mockMvc.perform(get("/rest/books").header("If-None-Match", eTag));
+		// then
+		assertNotNull(eTag);
+		// compressed and plain responses share the tag, it has to be weak
+		assertTrue(eTag.startsWith("W/\""));
+		response.andExpect(status().isNotModified()).andExpect(content().string(""));
+		verify(bookService, times(1)).findAllBooks();
+		verify(restExecutor, times(1)).execute(Mockito.any());
+	}
+
+	/**
+	 * Test should send catalog again with new tag when catalog changed
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldSendChangedCatalogWithNewTag() throws Exception {
+		// given
+		Mockito.when(bookService.getCatalogVersion()).thenReturn(3L, 4L);
+		final BookTo bookTo = new BookTo(1L, "title", "Author1", BookStatus.FREE);
+		Mockito.when(bookService.findBooksByAllFields("title", null, null)).thenReturn(Arrays.asList(bookTo));
+		String eTag = this.mockMvc.perform(get("/rest/books/find").param("title", "title")).andReturn().getResponse()
+				.getHeader("ETag");
+		// when
+		ResultActions response = this.mockMvc
+				.perform(get("/rest/books/find").param("title", "title").header("If-None-Match", eTag));
+		// then
+		response.andExpect(status().isOk()).andExpect(jsonPath("[0].id").value(bookTo.getId().intValue()));
+		assertNotEquals(eTag, response.andReturn().getResponse().getHeader("ETag"));
+	}
+
+	/**
+	 * Test should find books of one author
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldGetBooksOfAuthor() throws Exception {
+		// given
+		final BookTo bookTo = new BookTo(1L, "Test title", "Jan Kowalski, Zbigniew Nowak", BookStatus.FREE);
+		Mockito.when(bookService.findBooksOfAuthor("jan kowalski")).thenReturn(Arrays.asList(bookTo));
+		// when
+		ResultActions response = performAsync(get("/rest/authors/books").param("name", "jan kowalski"));
+		// then
+		response.andExpect(status().isOk())//
+				.andExpect(jsonPath("[0].id").value(bookTo.getId().intValue()))
+				.andExpect(jsonPath("[0].authors").value(bookTo.getAuthors()));
+	}
+
 	/**
 	 * Test should save book into database
 	 * 
@@ -88,11 +343,65 @@ public class BookRestServiceTest {
 		// given
 		File file = FileUtils.getFileFromClasspath("classpath:pl/spring/demo/web/json/bookToSave.json");
 		String json = FileUtils.readFileToString(file);
+		BookTo savedBook = new BookTo(7L, "FirstBook", "AutorSuper", BookStatus.FREE);
+		savedBook.setVersion(0L);
+		Mockito.when(bookService.saveBook(Mockito.any(BookTo.class))).thenReturn(savedBook);
 		// when
-		ResultActions response = this.mockMvc.perform(put("/rest/books/add").accept(MediaType.APPLICATION_JSON)
+		ResultActions response = performAsync(put("/rest/books/add").accept(MediaType.APPLICATION_JSON)
 				.contentType(MediaType.APPLICATION_JSON).content(json.getBytes()));
 		// then
-		response.andExpect(status().isCreated());
+		response.andExpect(status().isCreated())
+				.andExpect(jsonPath("id").value(savedBook.getId().intValue()))
+				.andExpect(jsonPath("version").value(0));
+	}
+
+	/**
+	 * Test should save many books in one request
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldSaveBooksInBatch() throws Exception {
+		// given
+		File file = FileUtils.getFileFromClasspath("classpath:pl/spring/demo/web/json/booksToSave.json");
+		String json = FileUtils.readFileToString(file);
+		Mockito.when(bookService.saveBooks(Mockito.anyListOf(BookTo.class))).thenReturn(Arrays.asList(
+				new BookTo(4L, "FirstBook", "AutorSuper", BookStatus.FREE),
+				new BookTo(2L, "SecondBook", "AutorSuper", BookStatus.LOAN)));
+		// when
+		ResultActions response = performAsync(put("/rest/books/batch").accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON).content(json.getBytes()));
+		// then
+		verify(bookService).saveBooks(Mockito.argThat(new ArgumentMatcher<List<BookTo>>() {
+			@Override
+			public boolean matches(Object argument) {
+				List<?> books = (List<?>) argument;
+				return books.size() == 2 && ((BookTo) books.get(0)).getId() == null
+						&& Long.valueOf(2L).equals(((BookTo) books.get(1)).getId());
+			}
+		}));
+		response.andExpect(status().isCreated())//
+				.andExpect(jsonPath("[0].id").value(4))
+				.andExpect(jsonPath("[1].status").value(BookStatus.LOAN.toString()));
+	}
+
+	/**
+	 * Test should refuse batch with too many books, without saving any
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldRefuseTooLargeBatch() throws Exception {
+		// given
+		String json = "[" + String.join(",", Collections.nCopies(BookRestService.MAX_BATCH_SIZE + 1, "{}")) + "]";
+		// when
+		ResultActions response = performAsync(put("/rest/books/batch").accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON).content(json.getBytes()));
+		// then
+		response.andExpect(status().isRequestEntityTooLarge());
+		verify(bookService, times(0)).saveBooks(Mockito.anyListOf(BookTo.class));
 	}
 
 	/**
@@ -107,7 +416,7 @@ public class BookRestServiceTest {
 		final BookTo bookTo = new BookTo(1L, "Test title", "Test authors", BookStatus.FREE);
 		Mockito.when(bookService.findBookById(Mockito.anyLong())).thenReturn(bookTo);
 		// when
-		ResultActions response = this.mockMvc.perform(get("/rest/books/book").param("id", "1")
+		ResultActions response = performAsync(get("/rest/books/book").param("id", "1")
 				.accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON));
 
 		response.andExpect(status().isOk())//
@@ -130,8 +439,8 @@ public class BookRestServiceTest {
 		final Long bookId = 2L;
 		// when
 		Mockito.when(bookService.findBookById(Mockito.anyLong())).thenReturn(bookTo);
-		ResultActions response = this.mockMvc
-				.perform(delete("/rest/books/delete").param("id", bookId.toString().substring(0, 1)));
+		ResultActions response = performAsync(
+				delete("/rest/books/delete").param("id", bookId.toString().substring(0, 1)));
 		// then
 		response.andExpect(status().isOk())//
 				.andExpect(jsonPath("id").value(bookTo.getId().intValue()))
@@ -151,13 +460,45 @@ public class BookRestServiceTest {
 		// given
 		String expectedMessage = "\"All books deleted\"";
 		// when
-		Mockito.when(bookService.findAllBooks()).thenReturn(Arrays.asList(new BookTo(), new BookTo()));
-		ResultActions response = this.mockMvc.perform(delete("/rest/books/deleteAll"));
+		ResultActions response = performAsync(delete("/rest/books/deleteAll"));
 		// then
-		verify(bookService, times(2)).deleteBook(Mockito.anyLong());
+		verify(bookService).deleteAllBooks();
+		verify(bookService, times(0)).deleteBook(Mockito.anyLong());
 		response.andExpect(status().isOk()).andExpect(content().string(expectedMessage));
 	}
 
+	/**
+	 * Test should delete several books in one request
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldDeleteBooksByIds() throws Exception {
+		// when
+		Mockito.when(bookService.deleteBooks(Arrays.asList(1L, 2L, 3L))).thenReturn(2);
+		ResultActions response = performAsync(delete("/rest/books/delete").param("ids", "1,2,3"));
+		// then
+		verify(bookService).deleteBooks(Arrays.asList(1L, 2L, 3L));
+		response.andExpect(status().isOk()).andExpect(content().string("2"));
+	}
+
+	/**
+	 * Test should delete authors without books
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldDeleteUnusedAuthors() throws Exception {
+		// when
+		Mockito.when(bookService.deleteUnusedAuthors()).thenReturn(3);
+		ResultActions response = performAsync(delete("/rest/authors/unused"));
+		// then
+		verify(bookService).deleteUnusedAuthors();
+		response.andExpect(status().isOk()).andExpect(content().string("3"));
+	}
+
 	/**
 	 * Test should edit book
 	 * 
@@ -170,11 +511,128 @@ public class BookRestServiceTest {
 		File file = FileUtils.getFileFromClasspath("classpath:pl/spring/demo/web/json/bookToSave.json");
 		String json = FileUtils.readFileToString(file);
 		// when
-		ResultActions response = this.mockMvc.perform(put("/rest/books/edit").param("book", json)
+		ResultActions response = performAsync(put("/rest/books/edit").param("book", json)
 				.accept(MediaType.APPLICATION_JSON).contentType(MediaType.APPLICATION_JSON).content(json.getBytes()));
 
 		// then
 		response.andExpect(status().isOk());
 	}
 
+	/**
+	 * Test should answer edit of book changed in the meantime with "CONFLICT"
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldReturnConflictWhenEditedBookChanged() throws Exception {
+		// given
+		Mockito.when(bookService.saveBook(Mockito.any()))
+				.thenThrow(new ObjectOptimisticLockingFailureException(BookEntity.class, 1L));
+		// when
+		ResultActions response = performAsync(put("/rest/books/edit").param("id", "1").param("title", "title")
+				.param("authors", "author").param("status", "FREE").param("version", "3"));
+		// then
+		response.andExpect(status().isConflict());
+	}
+
+	/**
+	 * Test should lend free book
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldLoanBook() throws Exception {
+		// given
+		Mockito.when(bookService.loan(1L)).thenReturn(new BookTo(1L, "title", "author", BookStatus.LOAN, 2L));
+		// when
+		ResultActions response = performAsync(put("/rest/books/loan").param("id", "1"));
+		// then
+		response.andExpect(status().isOk())//
+				.andExpect(jsonPath("status").value(BookStatus.LOAN.toString()))
+				.andExpect(jsonPath("version").value(2));
+		verify(bookService, times(0)).findBookById(1L);
+	}
+
+	/**
+	 * Test should refuse to lend book which is already lent
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldNotLoanLentBook() throws Exception {
+		// given
+		Mockito.when(bookService.findBookById(1L)).thenReturn(new BookTo(1L, "title", "author", BookStatus.LOAN));
+		// when
+		ResultActions response = performAsync(put("/rest/books/loan").param("id", "1"));
+		// then
+		response.andExpect(status().isConflict())//
+				.andExpect(jsonPath("status").value(BookStatus.LOAN.toString()));
+	}
+
+	/**
+	 * Test should not return unknown book
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldNotReturnUnknownBook() throws Exception {
+		// when
+		ResultActions response = performAsync(put("/rest/books/return").param("id", "7"));
+		// then
+		response.andExpect(status().isNotFound());
+		verify(bookService, times(1)).returnBook(7L);
+	}
+
+	/**
+	 * Test should refuse request at once when executor is saturated
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldRefuseRequestWhenExecutorIsBusy() throws Exception {
+		// given
+		Mockito.doThrow(new TaskRejectedException("busy")).when(restExecutor).execute(Mockito.any());
+		// when
+		ResultActions response = this.mockMvc.perform(get("/rest/books").accept(MediaType.APPLICATION_JSON));
+		// then
+		response.andExpect(status().isServiceUnavailable()).andExpect(header().string("Retry-After", "1"));
+		verify(bookService, times(0)).findAllBooks();
+	}
+
+	/**
+	 * Test should not run call which is still queued when request times out
+	 * 
+	 * @throws Exception
+	 *             when problem with Mockito
+	 */
+	@Test
+	public void testShouldSkipQueuedCallWhenRequestTimesOut() throws Exception {
+		// given
+		Runnable[] queuedTask = new Runnable[1];
+		Mockito.doAnswer(invocation -> {
+			queuedTask[0] = (Runnable) invocation.getArguments()[0];
+			return null;
+		}).when(restExecutor).execute(Mockito.any());
+		MvcResult result = this.mockMvc.perform(get("/rest/books").accept(MediaType.APPLICATION_JSON))
+				.andExpect(request().asyncStarted()).andReturn();
+		// when
+		MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+		for (AsyncListener listener : asyncContext.getListeners()) {
+			listener.onTimeout(new AsyncEvent(asyncContext));
+		}
+		queuedTask[0].run();
+		// then
+		verify(bookService, times(0)).findAllBooks();
+		this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+	}
+
+	private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+		MvcResult result = this.mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+		return this.mockMvc.perform(asyncDispatch(result));
+	}
 }